@@ -0,0 +1,57 @@
+-- Migration 002: RPC create_transaction untuk menyimpan header + semua line dalam satu round trip
+-- Juga memperbaiki update_stock_balance yang membaca tx_type dari header transaksi
+-- Jalankan di Supabase SQL Editor
+
+-- Trigger bawaan membaca NEW.tx_type, padahal kolom itu tidak ada di transaction_lines,
+-- sehingga setiap insert line gagal (HTTP 400). Harus terpasang sebelum client menulis line.
+CREATE OR REPLACE FUNCTION update_stock_balance()
+RETURNS TRIGGER AS $$
+DECLARE
+  v_tx_type TEXT;
+BEGIN
+  SELECT tx_type INTO v_tx_type FROM transactions WHERE id = NEW.transaction_id;
+
+  -- Insert initial stock balance if not exists
+  INSERT INTO stock_balance (item_id, quantity) 
+  VALUES (NEW.item_id, 0) 
+  ON CONFLICT (item_id) DO NOTHING;
+  
+  -- Update stock based on transaction type
+  IF (v_tx_type = 'IN') THEN
+    UPDATE stock_balance 
+    SET quantity = quantity + NEW.qty 
+    WHERE item_id = NEW.item_id;
+  ELSIF (v_tx_type IN ('OUT','DISPOSITION')) THEN
+    UPDATE stock_balance 
+    SET quantity = quantity - NEW.qty 
+    WHERE item_id = NEW.item_id;
+  END IF;
+  
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Function untuk membuat transaksi beserta semua line-nya dalam satu request (RPC)
+-- Idempoten: transaksi dengan id yang sudah ada tidak disentuh lagi
+CREATE OR REPLACE FUNCTION create_transaction(p_tx JSONB, p_lines JSONB)
+RETURNS UUID AS $$
+DECLARE
+  v_id UUID;
+BEGIN
+  INSERT INTO transactions (id, tx_type, tx_date, reference, created_by, notes, created_at)
+  SELECT id, tx_type, tx_date, reference, created_by, notes, COALESCE(created_at, NOW())
+  FROM jsonb_populate_record(NULL::transactions, p_tx)
+  ON CONFLICT (id) DO NOTHING
+  RETURNING id INTO v_id;
+
+  IF v_id IS NULL THEN
+    RETURN (p_tx->>'id')::UUID;
+  END IF;
+
+  INSERT INTO transaction_lines (id, transaction_id, item_id, location_id, qty, condition_status, unit_price)
+  SELECT id, v_id, item_id, location_id, qty, COALESCE(condition_status, 'USABLE'), unit_price
+  FROM jsonb_populate_recordset(NULL::transaction_lines, p_lines);
+
+  RETURN v_id;
+END;
+$$ LANGUAGE plpgsql;
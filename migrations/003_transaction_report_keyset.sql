@@ -0,0 +1,31 @@
+-- Migration 003: transaction_report untuk paging keyset di sisi server
+-- Kolom baru ditambahkan di akhir view sehingga CREATE OR REPLACE tetap berlaku
+
+CREATE INDEX IF NOT EXISTS idx_transactions_report_keyset ON transactions(tx_date, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_transaction_lines_transaction ON transaction_lines(transaction_id);
+
+-- View untuk laporan transaksi
+-- Tanpa ORDER BY: client mengurutkan dan mem-paging sendiri dengan keyset (tx_date, created_at, line_id)
+CREATE OR REPLACE VIEW transaction_report AS
+SELECT 
+  t.id,
+  t.tx_date,
+  t.reference,
+  t.tx_type,
+  t.notes,
+  i.item_code,
+  i.name as item_name,
+  i.category,
+  tl.qty,
+  tl.condition_status,
+  tl.unit_price,
+  u.fullname as created_by_name,
+  t.created_at,
+  tl.id as line_id,
+  tl.item_id,
+  tl.location_id
+FROM transactions t
+JOIN transaction_lines tl ON t.id = tl.transaction_id
+JOIN items i ON tl.item_id = i.id
+LEFT JOIN users u ON t.created_by = u.id
+WHERE i.is_active = true;
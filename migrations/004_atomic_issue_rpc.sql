@@ -0,0 +1,98 @@
+-- Migration 004: RPC issue_transaction (cek + kurangi stok secara atomik)
+-- update_stock_balance (diperbaiki di 002) dilewati bila stok sudah diterapkan oleh issue_transaction
+-- Jalankan di Supabase SQL Editor setelah 002_create_transaction_rpc.sql
+
+-- Function untuk update stock balance otomatis
+-- tx_type ada di header (transactions), bukan di transaction_lines
+-- Dilewati bila stok sudah diterapkan oleh RPC issue_transaction dalam transaksi database yang sama
+CREATE OR REPLACE FUNCTION update_stock_balance()
+RETURNS TRIGGER AS $$
+DECLARE
+  v_tx_type TEXT;
+BEGIN
+  IF current_setting('inventory.stock_applied', true) = 'on' THEN
+    RETURN NEW;
+  END IF;
+
+  SELECT tx_type INTO v_tx_type FROM transactions WHERE id = NEW.transaction_id;
+
+  -- Insert initial stock balance if not exists
+  INSERT INTO stock_balance (item_id, quantity) 
+  VALUES (NEW.item_id, 0) 
+  ON CONFLICT (item_id) DO NOTHING;
+  
+  -- Update stock based on transaction type
+  IF (v_tx_type = 'IN') THEN
+    UPDATE stock_balance 
+    SET quantity = quantity + NEW.qty 
+    WHERE item_id = NEW.item_id;
+  ELSIF (v_tx_type IN ('OUT','DISPOSITION')) THEN
+    UPDATE stock_balance 
+    SET quantity = quantity - NEW.qty 
+    WHERE item_id = NEW.item_id;
+  END IF;
+  
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Function untuk pengeluaran barang (OUT/DISPOSITION) yang atomik: cek + kurangi stok + simpan transaksi
+-- dalam satu request. UPDATE bersyarat (quantity >= qty) menghilangkan race check-then-act antar clerk.
+-- Hasil: {"status":"OK","balances":[{"item_id":..,"balance":..}]}
+--    atau {"status":"INSUFFICIENT_STOCK","item_id":..,"available":..,"requested":..} (tidak ada yang disimpan)
+CREATE OR REPLACE FUNCTION issue_transaction(p_tx JSONB, p_lines JSONB, p_allow_negative BOOLEAN DEFAULT FALSE)
+RETURNS JSONB AS $$
+DECLARE
+  v_need RECORD;
+  v_balance INTEGER;
+  v_balances JSONB := '[]'::JSONB;
+  v_shortage JSONB;
+BEGIN
+  IF EXISTS (SELECT 1 FROM transactions WHERE id = (p_tx->>'id')::UUID) THEN
+    RETURN jsonb_build_object('status', 'OK', 'duplicate', TRUE, 'balances', '[]'::JSONB);
+  END IF;
+
+  BEGIN
+    -- Urut per item_id supaya row lock selalu diambil dengan urutan yang sama (hindari deadlock)
+    FOR v_need IN
+      SELECT item_id, SUM(qty)::INTEGER AS qty
+      FROM jsonb_populate_recordset(NULL::transaction_lines, p_lines)
+      GROUP BY item_id
+      ORDER BY item_id
+    LOOP
+      INSERT INTO stock_balance (item_id, quantity)
+      VALUES (v_need.item_id, 0)
+      ON CONFLICT (item_id) DO NOTHING;
+
+      UPDATE stock_balance
+      SET quantity = quantity - v_need.qty
+      WHERE item_id = v_need.item_id
+        AND (p_allow_negative OR quantity >= v_need.qty)
+      RETURNING quantity INTO v_balance;
+
+      IF NOT FOUND THEN
+        SELECT quantity INTO v_balance FROM stock_balance WHERE item_id = v_need.item_id;
+        v_shortage := jsonb_build_object('status', 'INSUFFICIENT_STOCK', 'item_id', v_need.item_id,
+                                         'available', v_balance, 'requested', v_need.qty);
+        RAISE EXCEPTION 'insufficient stock';
+      END IF;
+
+      v_balances := v_balances || jsonb_build_object('item_id', v_need.item_id, 'balance', v_balance);
+    END LOOP;
+
+    -- Stok sudah dikurangi di atas; trigger tidak boleh mengurangi lagi
+    PERFORM set_config('inventory.stock_applied', 'on', TRUE);
+    PERFORM create_transaction(p_tx, p_lines);
+    PERFORM set_config('inventory.stock_applied', 'off', TRUE);
+  EXCEPTION WHEN raise_exception THEN
+    -- Semua pengurangan di blok ini dibatalkan
+    IF v_shortage IS NULL THEN
+      RAISE;
+    END IF;
+    RETURN v_shortage;
+  END;
+
+  RETURN jsonb_build_object('status', 'OK', 'balances', v_balances);
+END;
+$$ LANGUAGE plpgsql;
+
@@ -0,0 +1,45 @@
+-- Migration 005: trigger stok level statement dengan transition table
+-- Menggantikan trigger FOR EACH ROW (dua statement per line) dan ikut memperhitungkan ADJUST
+-- Jalankan di Supabase SQL Editor setelah 004_atomic_issue_rpc.sql
+
+-- Function untuk update stock balance otomatis (trigger level statement)
+-- Semua line dari satu INSERT diagregasi per item lewat transition table, lalu satu upsert per item:
+-- biaya insert massal sebanding dengan jumlah item berbeda, bukan jumlah line
+-- tx_type ada di header (transactions), bukan di transaction_lines
+-- IN dan ADJUST menambah qty (ADJUST boleh negatif), OUT dan DISPOSITION mengurangi
+-- Dilewati bila stok sudah diterapkan oleh RPC issue_transaction dalam transaksi database yang sama
+CREATE OR REPLACE FUNCTION update_stock_balance()
+RETURNS TRIGGER AS $$
+BEGIN
+  IF current_setting('inventory.stock_applied', true) = 'on' THEN
+    RETURN NULL;
+  END IF;
+
+  -- Urut per item_id supaya row lock selalu diambil dengan urutan yang sama (hindari deadlock)
+  INSERT INTO stock_balance (item_id, quantity)
+  SELECT l.item_id,
+         SUM(CASE t.tx_type
+               WHEN 'IN' THEN l.qty
+               WHEN 'ADJUST' THEN l.qty
+               WHEN 'OUT' THEN -l.qty
+               WHEN 'DISPOSITION' THEN -l.qty
+               ELSE 0
+             END)::INTEGER
+  FROM new_lines l
+  JOIN transactions t ON t.id = l.transaction_id
+  WHERE l.item_id IS NOT NULL
+  GROUP BY l.item_id
+  ORDER BY l.item_id
+  ON CONFLICT (item_id) DO UPDATE
+  SET quantity = stock_balance.quantity + EXCLUDED.quantity;
+
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Trigger untuk update stock balance otomatis
+DROP TRIGGER IF EXISTS trg_update_stock ON transaction_lines;
+CREATE TRIGGER trg_update_stock
+  AFTER INSERT ON transaction_lines
+  REFERENCING NEW TABLE AS new_lines
+  FOR EACH STATEMENT EXECUTE FUNCTION update_stock_balance();
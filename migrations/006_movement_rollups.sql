@@ -0,0 +1,200 @@
+-- Migration 006: rekap pergerakan harian/mingguan (movement_daily, movement_weekly) dan inventory_settings
+-- Jalankan di Supabase SQL Editor setelah 005_statement_stock_trigger.sql
+-- Dijalankan dalam satu transaksi dengan transaction_lines dikunci, supaya tidak ada line yang
+-- masuk di antara pembuatan trigger dan pengisian awal
+
+BEGIN;
+
+LOCK TABLE transaction_lines IN SHARE MODE;
+
+-- Tabel pengaturan global (satu baris); week_start_day: 1 = Senin ... 7 = Minggu (ISO)
+CREATE TABLE IF NOT EXISTS inventory_settings (
+  id BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+  week_start_day INTEGER NOT NULL DEFAULT 1 CHECK (week_start_day BETWEEN 1 AND 7)
+);
+
+-- Rekap pergerakan per item per hari, dirawat inkremental oleh trigger trg_movement_rollups
+CREATE TABLE IF NOT EXISTS movement_daily (
+  day DATE NOT NULL,
+  item_id UUID NOT NULL REFERENCES items(id) ON DELETE CASCADE,
+  in_qty INTEGER NOT NULL DEFAULT 0,
+  out_qty INTEGER NOT NULL DEFAULT 0,
+  disposition_qty INTEGER NOT NULL DEFAULT 0,
+  adjust_qty INTEGER NOT NULL DEFAULT 0,
+  in_value NUMERIC(14,2) NOT NULL DEFAULT 0,
+  out_value NUMERIC(14,2) NOT NULL DEFAULT 0,
+  disposition_value NUMERIC(14,2) NOT NULL DEFAULT 0,
+  PRIMARY KEY (day, item_id)
+);
+
+-- Rekap pergerakan per item per minggu; minggu dimulai pada inventory_settings.week_start_day
+CREATE TABLE IF NOT EXISTS movement_weekly (
+  week_start DATE NOT NULL,
+  item_id UUID NOT NULL REFERENCES items(id) ON DELETE CASCADE,
+  in_qty INTEGER NOT NULL DEFAULT 0,
+  out_qty INTEGER NOT NULL DEFAULT 0,
+  disposition_qty INTEGER NOT NULL DEFAULT 0,
+  adjust_qty INTEGER NOT NULL DEFAULT 0,
+  in_value NUMERIC(14,2) NOT NULL DEFAULT 0,
+  out_value NUMERIC(14,2) NOT NULL DEFAULT 0,
+  disposition_value NUMERIC(14,2) NOT NULL DEFAULT 0,
+  PRIMARY KEY (week_start, item_id)
+);
+
+INSERT INTO inventory_settings (id) 
+VALUES (TRUE) 
+ON CONFLICT DO NOTHING;
+
+-- Tanggal awal minggu yang memuat p_date, untuk minggu yang dimulai pada hari ISO p_week_start
+CREATE OR REPLACE FUNCTION week_start_of(p_date DATE, p_week_start INTEGER)
+RETURNS DATE AS $$
+  SELECT p_date - ((EXTRACT(ISODOW FROM p_date)::INTEGER - p_week_start + 7) % 7);
+$$ LANGUAGE sql IMMUTABLE;
+
+-- Function untuk merawat movement_daily dan movement_weekly (trigger level statement)
+-- Line dari satu INSERT diagregasi per (hari, item) dan (minggu, item), lalu satu upsert per grup
+-- Tidak ikut dilewati oleh inventory.stock_applied: pengeluaran lewat issue_transaction tetap tercatat
+CREATE OR REPLACE FUNCTION update_movement_rollups()
+RETURNS TRIGGER AS $$
+DECLARE
+  v_week_start INTEGER;
+BEGIN
+  -- FOR SHARE: set_week_start_day menunggu insert ini selesai sebelum membangun ulang movement_weekly
+  SELECT week_start_day INTO v_week_start FROM inventory_settings WHERE id FOR SHARE;
+
+  INSERT INTO movement_daily (day, item_id, in_qty, out_qty, disposition_qty, adjust_qty,
+                              in_value, out_value, disposition_value)
+  SELECT t.tx_date, l.item_id,
+         COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'IN'), 0),
+         COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'OUT'), 0),
+         COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'DISPOSITION'), 0),
+         COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'ADJUST'), 0),
+         COALESCE(SUM(l.qty * l.unit_price) FILTER (WHERE t.tx_type = 'IN'), 0),
+         COALESCE(SUM(l.qty * l.unit_price) FILTER (WHERE t.tx_type = 'OUT'), 0),
+         COALESCE(SUM(l.qty * l.unit_price) FILTER (WHERE t.tx_type = 'DISPOSITION'), 0)
+  FROM new_lines l
+  JOIN transactions t ON t.id = l.transaction_id
+  WHERE l.item_id IS NOT NULL
+  GROUP BY t.tx_date, l.item_id
+  ORDER BY t.tx_date, l.item_id
+  ON CONFLICT (day, item_id) DO UPDATE
+  SET in_qty = movement_daily.in_qty + EXCLUDED.in_qty,
+      out_qty = movement_daily.out_qty + EXCLUDED.out_qty,
+      disposition_qty = movement_daily.disposition_qty + EXCLUDED.disposition_qty,
+      adjust_qty = movement_daily.adjust_qty + EXCLUDED.adjust_qty,
+      in_value = movement_daily.in_value + EXCLUDED.in_value,
+      out_value = movement_daily.out_value + EXCLUDED.out_value,
+      disposition_value = movement_daily.disposition_value + EXCLUDED.disposition_value;
+
+  INSERT INTO movement_weekly (week_start, item_id, in_qty, out_qty, disposition_qty, adjust_qty,
+                               in_value, out_value, disposition_value)
+  SELECT week_start_of(t.tx_date, v_week_start), l.item_id,
+         COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'IN'), 0),
+         COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'OUT'), 0),
+         COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'DISPOSITION'), 0),
+         COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'ADJUST'), 0),
+         COALESCE(SUM(l.qty * l.unit_price) FILTER (WHERE t.tx_type = 'IN'), 0),
+         COALESCE(SUM(l.qty * l.unit_price) FILTER (WHERE t.tx_type = 'OUT'), 0),
+         COALESCE(SUM(l.qty * l.unit_price) FILTER (WHERE t.tx_type = 'DISPOSITION'), 0)
+  FROM new_lines l
+  JOIN transactions t ON t.id = l.transaction_id
+  WHERE l.item_id IS NOT NULL
+  GROUP BY 1, l.item_id
+  ORDER BY 1, l.item_id
+  ON CONFLICT (week_start, item_id) DO UPDATE
+  SET in_qty = movement_weekly.in_qty + EXCLUDED.in_qty,
+      out_qty = movement_weekly.out_qty + EXCLUDED.out_qty,
+      disposition_qty = movement_weekly.disposition_qty + EXCLUDED.disposition_qty,
+      adjust_qty = movement_weekly.adjust_qty + EXCLUDED.adjust_qty,
+      in_value = movement_weekly.in_value + EXCLUDED.in_value,
+      out_value = movement_weekly.out_value + EXCLUDED.out_value,
+      disposition_value = movement_weekly.disposition_value + EXCLUDED.disposition_value;
+
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Trigger untuk rekap pergerakan harian/mingguan
+DROP TRIGGER IF EXISTS trg_movement_rollups ON transaction_lines;
+CREATE TRIGGER trg_movement_rollups
+  AFTER INSERT ON transaction_lines
+  REFERENCING NEW TABLE AS new_lines
+  FOR EACH STATEMENT EXECUTE FUNCTION update_movement_rollups();
+
+-- Function (RPC) untuk mengganti hari awal minggu; movement_weekly dibangun ulang dari movement_daily
+-- sehingga biayanya sebanding dengan hari x item, bukan jumlah transaction line
+CREATE OR REPLACE FUNCTION set_week_start_day(p_day INTEGER)
+RETURNS VOID AS $$
+BEGIN
+  IF p_day NOT BETWEEN 1 AND 7 THEN
+    RAISE EXCEPTION 'week_start_day must be between 1 and 7, got %', p_day;
+  END IF;
+
+  UPDATE inventory_settings SET week_start_day = p_day WHERE id;
+
+  DELETE FROM movement_weekly;
+  INSERT INTO movement_weekly (week_start, item_id, in_qty, out_qty, disposition_qty, adjust_qty,
+                               in_value, out_value, disposition_value)
+  SELECT week_start_of(day, p_day), item_id,
+         SUM(in_qty), SUM(out_qty), SUM(disposition_qty), SUM(adjust_qty),
+         SUM(in_value), SUM(out_value), SUM(disposition_value)
+  FROM movement_daily
+  GROUP BY 1, item_id;
+END;
+$$ LANGUAGE plpgsql;
+
+-- View untuk laporan ringkas harian/mingguan (dibaca client dengan keyset (period_start, item_id))
+CREATE OR REPLACE VIEW movement_daily_report AS
+SELECT 
+  m.day as period_start,
+  m.item_id,
+  i.item_code,
+  i.name as item_name,
+  m.in_qty,
+  m.out_qty,
+  m.disposition_qty,
+  m.adjust_qty,
+  m.in_value,
+  m.out_value,
+  m.disposition_value
+FROM movement_daily m
+JOIN items i ON m.item_id = i.id
+WHERE i.is_active = true;
+
+CREATE OR REPLACE VIEW movement_weekly_report AS
+SELECT 
+  m.week_start as period_start,
+  m.item_id,
+  i.item_code,
+  i.name as item_name,
+  m.in_qty,
+  m.out_qty,
+  m.disposition_qty,
+  m.adjust_qty,
+  m.in_value,
+  m.out_value,
+  m.disposition_value
+FROM movement_weekly m
+JOIN items i ON m.item_id = i.id
+WHERE i.is_active = true;
+
+-- Isi awal dari transaksi yang sudah ada, lalu movement_weekly dari movement_daily
+INSERT INTO movement_daily (day, item_id, in_qty, out_qty, disposition_qty, adjust_qty,
+                            in_value, out_value, disposition_value)
+SELECT t.tx_date, l.item_id,
+       COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'IN'), 0),
+       COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'OUT'), 0),
+       COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'DISPOSITION'), 0),
+       COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'ADJUST'), 0),
+       COALESCE(SUM(l.qty * l.unit_price) FILTER (WHERE t.tx_type = 'IN'), 0),
+       COALESCE(SUM(l.qty * l.unit_price) FILTER (WHERE t.tx_type = 'OUT'), 0),
+       COALESCE(SUM(l.qty * l.unit_price) FILTER (WHERE t.tx_type = 'DISPOSITION'), 0)
+FROM transaction_lines l
+JOIN transactions t ON t.id = l.transaction_id
+WHERE l.item_id IS NOT NULL
+GROUP BY t.tx_date, l.item_id
+ON CONFLICT (day, item_id) DO NOTHING;
+
+SELECT set_week_start_day(week_start_day) FROM inventory_settings;
+
+COMMIT;
@@ -0,0 +1,18 @@
+-- Migration 007: publikasikan items dan stock_balance ke Supabase Realtime
+-- Jalankan di Supabase SQL Editor
+
+-- Supabase Realtime: client berlangganan perubahan items dan stock_balance (postgres_changes)
+DO $$
+BEGIN
+  IF EXISTS (SELECT 1 FROM pg_publication WHERE pubname = 'supabase_realtime') THEN
+    IF NOT EXISTS (SELECT 1 FROM pg_publication_tables
+                   WHERE pubname = 'supabase_realtime' AND schemaname = 'public' AND tablename = 'items') THEN
+      ALTER PUBLICATION supabase_realtime ADD TABLE items;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_publication_tables
+                   WHERE pubname = 'supabase_realtime' AND schemaname = 'public' AND tablename = 'stock_balance') THEN
+      ALTER PUBLICATION supabase_realtime ADD TABLE stock_balance;
+    END IF;
+  END IF;
+END;
+$$;
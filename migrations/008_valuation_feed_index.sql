@@ -0,0 +1,5 @@
+-- Migration 008: index untuk feed valuasi persediaan
+-- Jalankan di Supabase SQL Editor
+
+-- Client valuasi membaca line baru dari transaction_report urut (created_at, line_id) sejak polling terakhir
+CREATE INDEX IF NOT EXISTS idx_transactions_created_at ON transactions(created_at, id);
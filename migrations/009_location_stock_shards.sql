@@ -0,0 +1,192 @@
+-- Migration 009: saldo stok per lokasi dengan counter shard untuk item yang ramai
+-- Jalankan di Supabase SQL Editor setelah 008_valuation_feed_index.sql
+--
+-- Sebelumnya setiap pergerakan sebuah item mengantre di satu baris stock_balance (row lock yang sama).
+-- Sekarang saldo disimpan per (item_id, location_id, shard) di stock_balance_location:
+--   * penerimaan dan pengeluaran di lokasi berbeda mengunci baris yang berbeda
+--   * item yang ramai (stock_hot_items) dipecah ke beberapa shard; penambahan memilih shard acak
+-- stock_balance menjadi view yang menjumlahkan semua lokasi dan shard, jadi client lama tetap bisa membaca total.
+
+-- Lokasi bawaan yang sebelumnya hanya ada di combo box client
+INSERT INTO locations (name)
+SELECT v.name FROM (VALUES ('Main Warehouse'), ('Storage A'), ('Storage B')) AS v(name)
+WHERE NOT EXISTS (SELECT 1 FROM locations l WHERE l.name = v.name);
+
+-- Lokasi untuk line tanpa location_id (data lama, import CSV)
+CREATE OR REPLACE FUNCTION default_location_id()
+RETURNS UUID AS $$
+  SELECT id FROM locations ORDER BY (name = 'Main Warehouse') DESC, name, id LIMIT 1;
+$$ LANGUAGE sql STABLE;
+
+-- Item yang sering bergerak bersamaan; item yang tidak terdaftar memakai satu shard
+CREATE TABLE IF NOT EXISTS stock_hot_items (
+  item_id UUID PRIMARY KEY REFERENCES items(id) ON DELETE CASCADE,
+  shards INTEGER NOT NULL DEFAULT 4 CHECK (shards BETWEEN 1 AND 64)
+);
+
+CREATE TABLE IF NOT EXISTS stock_balance_location (
+  item_id UUID NOT NULL REFERENCES items(id) ON DELETE CASCADE,
+  location_id UUID NOT NULL REFERENCES locations(id),
+  shard SMALLINT NOT NULL DEFAULT 0,
+  quantity INTEGER NOT NULL DEFAULT 0,
+  PRIMARY KEY (item_id, location_id, shard)
+);
+
+-- Pindahkan saldo lama ke lokasi default (hanya bila tabel stock_balance masih ada)
+DO $$
+BEGIN
+  IF EXISTS (SELECT 1 FROM pg_tables WHERE schemaname = 'public' AND tablename = 'stock_balance') THEN
+    INSERT INTO stock_balance_location (item_id, location_id, shard, quantity)
+    SELECT item_id, default_location_id(), 0, quantity FROM stock_balance
+    ON CONFLICT (item_id, location_id, shard) DO NOTHING;
+    DROP TABLE stock_balance;
+  END IF;
+END;
+$$;
+
+-- Total per item, dijumlahkan saat dibaca
+CREATE OR REPLACE VIEW stock_balance AS
+SELECT item_id, SUM(quantity)::INTEGER AS quantity
+FROM stock_balance_location
+GROUP BY item_id;
+
+-- Line tanpa lokasi dicatat di lokasi default, sehingga saldo per lokasi selalu lengkap
+CREATE OR REPLACE FUNCTION create_transaction(p_tx JSONB, p_lines JSONB)
+RETURNS UUID AS $$
+DECLARE
+  v_id UUID;
+BEGIN
+  INSERT INTO transactions (id, tx_type, tx_date, reference, created_by, notes, created_at)
+  SELECT id, tx_type, tx_date, reference, created_by, notes, COALESCE(created_at, NOW())
+  FROM jsonb_populate_record(NULL::transactions, p_tx)
+  ON CONFLICT (id) DO NOTHING
+  RETURNING id INTO v_id;
+
+  IF v_id IS NULL THEN
+    RETURN (p_tx->>'id')::UUID;
+  END IF;
+
+  INSERT INTO transaction_lines (id, transaction_id, item_id, location_id, qty, condition_status, unit_price)
+  SELECT id, v_id, item_id, COALESCE(location_id, default_location_id()), qty,
+         COALESCE(condition_status, 'USABLE'), unit_price
+  FROM jsonb_populate_recordset(NULL::transaction_lines, p_lines);
+
+  RETURN v_id;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Trigger stok: agregasi per (item, lokasi), lalu satu upsert ke satu shard acak per grup
+CREATE OR REPLACE FUNCTION update_stock_balance()
+RETURNS TRIGGER AS $$
+BEGIN
+  IF current_setting('inventory.stock_applied', true) = 'on' THEN
+    RETURN NULL;
+  END IF;
+
+  -- Urut per (item_id, location_id) supaya row lock selalu diambil dengan urutan yang sama (hindari deadlock)
+  INSERT INTO stock_balance_location (item_id, location_id, shard, quantity)
+  SELECT m.item_id, m.location_id,
+         floor(random() * COALESCE(h.shards, 1))::SMALLINT,
+         m.quantity
+  FROM (
+    SELECT l.item_id, COALESCE(l.location_id, default_location_id()) AS location_id,
+           SUM(CASE t.tx_type
+                 WHEN 'IN' THEN l.qty
+                 WHEN 'ADJUST' THEN l.qty
+                 WHEN 'OUT' THEN -l.qty
+                 WHEN 'DISPOSITION' THEN -l.qty
+                 ELSE 0
+               END)::INTEGER AS quantity
+    FROM new_lines l
+    JOIN transactions t ON t.id = l.transaction_id
+    WHERE l.item_id IS NOT NULL
+    GROUP BY 1, 2
+  ) m
+  LEFT JOIN stock_hot_items h ON h.item_id = m.item_id
+  ORDER BY m.item_id, m.location_id
+  ON CONFLICT (item_id, location_id, shard) DO UPDATE
+  SET quantity = stock_balance_location.quantity + EXCLUDED.quantity;
+
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Pengeluaran atomik per lokasi: hanya shard (item, lokasi) yang dikunci, lokasi lain tidak ikut menunggu.
+-- Hasil: {"status":"OK","balances":[{"item_id":..,"balance":..}]} dengan balance = total item di semua lokasi
+--    atau {"status":"INSUFFICIENT_STOCK","item_id":..,"location_id":..,"available":..,"requested":..}
+CREATE OR REPLACE FUNCTION issue_transaction(p_tx JSONB, p_lines JSONB, p_allow_negative BOOLEAN DEFAULT FALSE)
+RETURNS JSONB AS $$
+DECLARE
+  v_need RECORD;
+  v_available INTEGER;
+  v_balances JSONB := '[]'::JSONB;
+  v_shortage JSONB;
+BEGIN
+  IF EXISTS (SELECT 1 FROM transactions WHERE id = (p_tx->>'id')::UUID) THEN
+    RETURN jsonb_build_object('status', 'OK', 'duplicate', TRUE, 'balances', '[]'::JSONB);
+  END IF;
+
+  BEGIN
+    FOR v_need IN
+      SELECT item_id, COALESCE(location_id, default_location_id()) AS location_id, SUM(qty)::INTEGER AS qty
+      FROM jsonb_populate_recordset(NULL::transaction_lines, p_lines)
+      GROUP BY 1, 2
+      ORDER BY 1, 2
+    LOOP
+      INSERT INTO stock_balance_location (item_id, location_id, shard, quantity)
+      VALUES (v_need.item_id, v_need.location_id, 0, 0)
+      ON CONFLICT (item_id, location_id, shard) DO NOTHING;
+
+      -- Semua shard item di lokasi ini dikunci, supaya cek saldo dan pengurangan tidak bisa disusul
+      PERFORM 1 FROM stock_balance_location
+      WHERE item_id = v_need.item_id AND location_id = v_need.location_id
+      ORDER BY shard
+      FOR UPDATE;
+
+      SELECT COALESCE(SUM(quantity), 0)::INTEGER INTO v_available
+      FROM stock_balance_location
+      WHERE item_id = v_need.item_id AND location_id = v_need.location_id;
+
+      IF NOT p_allow_negative AND v_available < v_need.qty THEN
+        v_shortage := jsonb_build_object('status', 'INSUFFICIENT_STOCK', 'item_id', v_need.item_id,
+                                         'location_id', v_need.location_id,
+                                         'available', v_available, 'requested', v_need.qty);
+        RAISE EXCEPTION 'insufficient stock';
+      END IF;
+
+      UPDATE stock_balance_location
+      SET quantity = quantity - v_need.qty
+      WHERE item_id = v_need.item_id AND location_id = v_need.location_id AND shard = 0;
+    END LOOP;
+
+    -- Stok sudah dikurangi di atas; trigger tidak boleh mengurangi lagi
+    PERFORM set_config('inventory.stock_applied', 'on', TRUE);
+    PERFORM create_transaction(p_tx, p_lines);
+    PERFORM set_config('inventory.stock_applied', 'off', TRUE);
+  EXCEPTION WHEN raise_exception THEN
+    -- Semua pengurangan di blok ini dibatalkan
+    IF v_shortage IS NULL THEN
+      RAISE;
+    END IF;
+    RETURN v_shortage;
+  END;
+
+  SELECT COALESCE(jsonb_agg(jsonb_build_object('item_id', b.item_id, 'balance', b.quantity)), '[]'::JSONB)
+  INTO v_balances
+  FROM stock_balance b
+  WHERE b.item_id IN (SELECT DISTINCT item_id FROM jsonb_populate_recordset(NULL::transaction_lines, p_lines));
+
+  RETURN jsonb_build_object('status', 'OK', 'balances', v_balances);
+END;
+$$ LANGUAGE plpgsql;
+
+-- Supabase Realtime: stock_balance sekarang view, jadi client berlangganan stock_balance_location
+DO $$
+BEGIN
+  IF EXISTS (SELECT 1 FROM pg_publication WHERE pubname = 'supabase_realtime')
+     AND NOT EXISTS (SELECT 1 FROM pg_publication_tables
+                     WHERE pubname = 'supabase_realtime' AND schemaname = 'public' AND tablename = 'stock_balance_location') THEN
+    ALTER PUBLICATION supabase_realtime ADD TABLE stock_balance_location;
+  END IF;
+END;
+$$;
@@ -0,0 +1,9 @@
+-- Migration 010: transactions.created_at wajib diisi
+-- Jalankan di Supabase SQL Editor setelah 009_location_stock_shards.sql
+--
+-- Laporan transaksi di-paging dengan keyset (tx_date, created_at, line_id); baris dengan created_at NULL
+-- tidak bisa dilanjutkan dengan keyset. create_transaction sudah mengisi NOW() bila client tidak mengirimnya.
+
+UPDATE transactions SET created_at = tx_date::TIMESTAMP WHERE created_at IS NULL;
+ALTER TABLE transactions ALTER COLUMN created_at SET DEFAULT NOW();
+ALTER TABLE transactions ALTER COLUMN created_at SET NOT NULL;
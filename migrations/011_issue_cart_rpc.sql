@@ -0,0 +1,95 @@
+-- Migration 011: RPC issue_transactions untuk mengeluarkan satu keranjang (beberapa header) secara atomik
+-- Jalankan di Supabase SQL Editor setelah 010_transactions_created_at_not_null.sql
+--
+-- Sebelumnya keranjang berisi line OUT dan DISPOSITION dikirim sebagai dua panggilan issue_transaction;
+-- bila panggilan kedua kekurangan stok, yang pertama sudah tersimpan.
+
+-- Function untuk pengeluaran barang (OUT/DISPOSITION) yang atomik: cek + kurangi stok + simpan semua header
+-- dan line dalam satu request. Satu keranjang bisa berisi beberapa header (OUT dan DISPOSITION); semuanya
+-- tersimpan bersama atau tidak sama sekali. Setiap line membawa transaction_id milik header-nya.
+-- Semua shard (item, lokasi) dikunci sebelum cek saldo, sehingga tidak ada race check-then-act antar clerk;
+-- lokasi lain tidak ikut menunggu.
+-- Hasil: {"status":"OK","balances":[{"item_id":..,"balance":..}]} dengan balance = total item di semua lokasi
+--    atau {"status":"INSUFFICIENT_STOCK","item_id":..,"location_id":..,"available":..,"requested":..} (tidak ada yang disimpan)
+CREATE OR REPLACE FUNCTION issue_transactions(p_txs JSONB, p_lines JSONB, p_allow_negative BOOLEAN DEFAULT FALSE)
+RETURNS JSONB AS $$
+DECLARE
+  v_need RECORD;
+  v_tx JSONB;
+  v_available INTEGER;
+  v_balances JSONB := '[]'::JSONB;
+  v_shortage JSONB;
+BEGIN
+  -- Header selalu tersimpan bersama, jadi satu yang sudah ada berarti keranjang ini sudah tercatat
+  IF EXISTS (SELECT 1 FROM transactions
+             WHERE id IN (SELECT (h->>'id')::UUID FROM jsonb_array_elements(p_txs) h)) THEN
+    RETURN jsonb_build_object('status', 'OK', 'duplicate', TRUE, 'balances', '[]'::JSONB);
+  END IF;
+
+  BEGIN
+    FOR v_need IN
+      SELECT item_id, COALESCE(location_id, default_location_id()) AS location_id, SUM(qty)::INTEGER AS qty
+      FROM jsonb_populate_recordset(NULL::transaction_lines, p_lines)
+      GROUP BY 1, 2
+      ORDER BY 1, 2
+    LOOP
+      INSERT INTO stock_balance_location (item_id, location_id, shard, quantity)
+      VALUES (v_need.item_id, v_need.location_id, 0, 0)
+      ON CONFLICT (item_id, location_id, shard) DO NOTHING;
+
+      -- Semua shard item di lokasi ini dikunci, supaya cek saldo dan pengurangan tidak bisa disusul
+      PERFORM 1 FROM stock_balance_location
+      WHERE item_id = v_need.item_id AND location_id = v_need.location_id
+      ORDER BY shard
+      FOR UPDATE;
+
+      SELECT COALESCE(SUM(quantity), 0)::INTEGER INTO v_available
+      FROM stock_balance_location
+      WHERE item_id = v_need.item_id AND location_id = v_need.location_id;
+
+      IF NOT p_allow_negative AND v_available < v_need.qty THEN
+        v_shortage := jsonb_build_object('status', 'INSUFFICIENT_STOCK', 'item_id', v_need.item_id,
+                                         'location_id', v_need.location_id,
+                                         'available', v_available, 'requested', v_need.qty);
+        RAISE EXCEPTION 'insufficient stock';
+      END IF;
+
+      UPDATE stock_balance_location
+      SET quantity = quantity - v_need.qty
+      WHERE item_id = v_need.item_id AND location_id = v_need.location_id AND shard = 0;
+    END LOOP;
+
+    -- Stok sudah dikurangi di atas; trigger tidak boleh mengurangi lagi
+    PERFORM set_config('inventory.stock_applied', 'on', TRUE);
+    FOR v_tx IN SELECT value FROM jsonb_array_elements(p_txs) LOOP
+      PERFORM create_transaction(v_tx, COALESCE(
+        (SELECT jsonb_agg(l) FROM jsonb_array_elements(p_lines) l WHERE l->>'transaction_id' = v_tx->>'id'),
+        '[]'::JSONB));
+    END LOOP;
+    PERFORM set_config('inventory.stock_applied', 'off', TRUE);
+  EXCEPTION WHEN raise_exception THEN
+    -- Semua pengurangan di blok ini dibatalkan
+    IF v_shortage IS NULL THEN
+      RAISE;
+    END IF;
+    RETURN v_shortage;
+  END;
+
+  SELECT COALESCE(jsonb_agg(jsonb_build_object('item_id', b.item_id, 'balance', b.quantity)), '[]'::JSONB)
+  INTO v_balances
+  FROM stock_balance b
+  WHERE b.item_id IN (SELECT DISTINCT item_id FROM jsonb_populate_recordset(NULL::transaction_lines, p_lines));
+
+  RETURN jsonb_build_object('status', 'OK', 'balances', v_balances);
+END;
+$$ LANGUAGE plpgsql;
+
+-- Bentuk lama untuk satu header; line mengikuti id header tersebut
+CREATE OR REPLACE FUNCTION issue_transaction(p_tx JSONB, p_lines JSONB, p_allow_negative BOOLEAN DEFAULT FALSE)
+RETURNS JSONB AS $$
+  SELECT issue_transactions(
+    jsonb_build_array(p_tx),
+    COALESCE((SELECT jsonb_agg(l || jsonb_build_object('transaction_id', p_tx->'id'))
+              FROM jsonb_array_elements(p_lines) l), '[]'::JSONB),
+    p_allow_negative);
+$$ LANGUAGE sql;
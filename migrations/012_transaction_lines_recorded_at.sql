@@ -0,0 +1,43 @@
+-- Migration 012: waktu pencatatan line diisi oleh server
+-- Jalankan di Supabase SQL Editor setelah 011_issue_cart_rpc.sql
+--
+-- Valuasi persediaan mengambil line baru sejak polling terakhir. transactions.created_at diisi client, sehingga
+-- transaksi dari journal offline yang dikirim ulang berjam-jam kemudian membawa created_at lama dan terlewat.
+-- recorded_at selalu diisi server (NOW() saat line disimpan); create_transaction tidak menyalinnya dari client.
+
+ALTER TABLE transaction_lines ADD COLUMN IF NOT EXISTS recorded_at TIMESTAMP;
+-- Line lama: urutan pencatatan terbaik yang tersedia adalah created_at header-nya
+UPDATE transaction_lines tl SET recorded_at = t.created_at
+FROM transactions t
+WHERE t.id = tl.transaction_id AND tl.recorded_at IS NULL;
+UPDATE transaction_lines SET recorded_at = NOW() WHERE recorded_at IS NULL;
+ALTER TABLE transaction_lines ALTER COLUMN recorded_at SET DEFAULT NOW();
+ALTER TABLE transaction_lines ALTER COLUMN recorded_at SET NOT NULL;
+
+-- Client valuasi membaca transaction_report urut (recorded_at, line_id)
+CREATE INDEX IF NOT EXISTS idx_transaction_lines_recorded_at ON transaction_lines(recorded_at, id);
+
+CREATE OR REPLACE VIEW transaction_report AS
+SELECT 
+  t.id,
+  t.tx_date,
+  t.reference,
+  t.tx_type,
+  t.notes,
+  i.item_code,
+  i.name as item_name,
+  i.category,
+  tl.qty,
+  tl.condition_status,
+  tl.unit_price,
+  u.fullname as created_by_name,
+  t.created_at,
+  tl.id as line_id,
+  tl.item_id,
+  tl.location_id,
+  tl.recorded_at
+FROM transactions t
+JOIN transaction_lines tl ON t.id = tl.transaction_id
+JOIN items i ON tl.item_id = i.id
+LEFT JOIN users u ON t.created_by = u.id
+WHERE i.is_active = true;
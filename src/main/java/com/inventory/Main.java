@@ -1,23 +1,44 @@
 package com.inventory;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import com.inventory.cli.InventoryCli;
+import com.inventory.controller.MainController;
+import com.inventory.service.RequestMetrics;
+import com.inventory.service.SupabaseService;
+import com.inventory.service.SupabaseTransport;
 import com.inventory.util.ConfigManager;
+import java.util.concurrent.CompletableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class Main extends Application {
+    private static final Logger logger = LoggerFactory.getLogger(Main.class);
 
     @Override
     public void start(Stage primaryStage) throws Exception {
         // Initialize configuration
         ConfigManager.initialize();
+        ConfigManager.startWatching();
         
-        // Load main FXML
-        Parent root = FXMLLoader.load(getClass().getResource("/fxml/MainView.fxml"));
+        // Ask for the first page of items now; connecting and fetching overlap with parsing the FXML
+        CompletableFuture<SupabaseService.ItemPage> firstItems = SupabaseService.getInstance().getItemsPageAsync(
+            SupabaseService.ItemProjection.TABLE, null, 0, SupabaseService.ITEM_PAGE_SIZE);
+        RequestMetrics.getInstance().startLogging(ConfigManager.getMetricsLogInterval());
+        
+        // Show the window straight away; the real UI replaces the placeholder once it is built
+        VBox placeholder = new VBox(10, new ProgressIndicator(), new Label("Loading..."));
+        placeholder.setStyle("-fx-alignment: center;");
+        Scene scene = new Scene(placeholder, 1200, 800);
         primaryStage.setTitle("Inventory Management System - Supabase");
-        primaryStage.setScene(new Scene(root, 1200, 800));
+        primaryStage.setScene(scene);
         primaryStage.setMinWidth(1000);
         primaryStage.setMinHeight(700);
 
@@ -25,15 +46,41 @@ public class Main extends Application {
         System.setProperty("javafx.runtime.components", "true");
 
         primaryStage.show();
+        
+        Platform.runLater(() -> {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/MainView.fxml"));
+            loader.setControllerFactory(type -> {
+                if (type == MainController.class) {
+                    return new MainController(firstItems);
+                }
+                try {
+                    return type.getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Cannot create controller " + type.getName(), e);
+                }
+            });
+            try {
+                Parent root = loader.load();
+                scene.setRoot(root);
+            } catch (Exception e) {
+                logger.error("Failed to load main view", e);
+                placeholder.getChildren().setAll(new Label("Failed to load the main window: " + e.getMessage()));
+            }
+        });
     }
 
     @Override
     public void stop() throws Exception {
         // Cleanup if needed
+        SupabaseTransport.getInstance().shutdown();
         super.stop();
     }
 
     public static void main(String[] args) {
+        // A command such as "export-stock" runs headless and never starts the JavaFX toolkit
+        if (args.length > 0 && InventoryCli.isCommand(args[0])) {
+            System.exit(new InventoryCli(System.out, System.err).run(args));
+        }
         launch(args);
     }
-}
\ No newline at end of file
+}
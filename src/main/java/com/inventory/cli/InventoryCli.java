@@ -0,0 +1,201 @@
+package com.inventory.cli;
+
+import com.inventory.model.Item;
+import com.inventory.model.Transaction;
+import com.inventory.service.CsvExporter;
+import com.inventory.service.ReceiptImporter;
+import com.inventory.service.SupabaseService;
+import com.inventory.util.ConfigManager;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Headless entry point for scheduled jobs. Uses the same config.properties and Supabase service as
+ * the desktop app but never starts JavaFX.
+ * <p>
+ * Exit codes: 0 success, 1 the command failed, 2 bad usage, 3 check-stock found problems.
+ */
+public class InventoryCli {
+    private static final Logger logger = LoggerFactory.getLogger(InventoryCli.class);
+
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILED = 1;
+    public static final int EXIT_USAGE = 2;
+    public static final int EXIT_CHECK_FAILED = 3;
+
+    private static final Set<String> COMMANDS = Set.of("import-receipts", "export-report", "export-stock", "check-stock", "help");
+
+    private final PrintStream out;
+    private final PrintStream err;
+
+    public InventoryCli(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    public static void main(String[] args) {
+        System.exit(new InventoryCli(System.out, System.err).run(args));
+    }
+
+    /**
+     * @return whether {@code arg} names a CLI command, i.e. the process should run headless
+     */
+    public static boolean isCommand(String arg) {
+        return COMMANDS.contains(arg);
+    }
+
+    public int run(String[] args) {
+        if (args.length == 0 || !isCommand(args[0])) {
+            printUsage(err);
+            return EXIT_USAGE;
+        }
+        String command = args[0];
+        List<String> arguments = Arrays.asList(args).subList(1, args.length);
+        if ("help".equals(command)) {
+            printUsage(out);
+            return EXIT_OK;
+        }
+        ConfigManager.initialize();
+        SupabaseService supabaseService = SupabaseService.getInstance();
+        try {
+            return switch (command) {
+                case "import-receipts" -> importReceipts(supabaseService, arguments);
+                case "export-report" -> exportReport(supabaseService, arguments);
+                case "export-stock" -> exportStock(supabaseService, arguments);
+                case "check-stock" -> checkStock(supabaseService, arguments);
+                default -> EXIT_USAGE;
+            };
+        } catch (UsageException e) {
+            err.println(e.getMessage());
+            printUsage(err);
+            return EXIT_USAGE;
+        } catch (Exception e) {
+            logger.debug("{} failed", command, e);
+            Throwable cause = e;
+            while (cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            err.println(command + " failed: " + e.getMessage() + (cause == e ? "" : " (" + cause.getMessage() + ")"));
+            return EXIT_FAILED;
+        }
+    }
+
+    private int importReceipts(SupabaseService supabaseService, List<String> arguments) throws Exception {
+        boolean dryRun = arguments.contains("--dry-run");
+        List<String> files = arguments.stream().filter(argument -> !argument.equals("--dry-run")).toList();
+        if (files.size() != 1) {
+            throw new UsageException("import-receipts needs exactly one CSV file");
+        }
+        Path file = existingFile(files.get(0));
+        List<Transaction> receipts;
+        try {
+            receipts = new ReceiptImporter(supabaseService).importReceipts(file, dryRun, _ -> { });
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            return EXIT_FAILED;
+        }
+        int lines = receipts.stream().mapToInt(receipt -> receipt.getLines().size()).sum();
+        out.println((dryRun ? "Checked " : "Imported ") + receipts.size() + " receipts with " + lines + " lines");
+        return EXIT_OK;
+    }
+
+    private int exportReport(SupabaseService supabaseService, List<String> arguments) throws Exception {
+        if (arguments.size() != 3) {
+            throw new UsageException("export-report needs a start date, an end date and an output file");
+        }
+        LocalDate start = date(arguments.get(0));
+        LocalDate end = date(arguments.get(1));
+        if (end.isBefore(start)) {
+            throw new UsageException("The end date is before the start date");
+        }
+        long rows = new CsvExporter(supabaseService)
+            .exportTransactionReport(start, end, Path.of(arguments.get(2)), new AtomicBoolean(), _ -> { });
+        out.println("Exported " + rows + " report rows to " + arguments.get(2));
+        return EXIT_OK;
+    }
+
+    private int exportStock(SupabaseService supabaseService, List<String> arguments) throws Exception {
+        if (arguments.size() != 1) {
+            throw new UsageException("export-stock needs an output file");
+        }
+        long rows = new CsvExporter(supabaseService).exportStock(Path.of(arguments.get(0)), new AtomicBoolean(), _ -> { });
+        out.println("Exported " + rows + " items to " + arguments.get(0));
+        return EXIT_OK;
+    }
+
+    // Lists items with a negative balance or below their minimum stock, one tab-separated line each
+    private int checkStock(SupabaseService supabaseService, List<String> arguments) {
+        if (!arguments.isEmpty()) {
+            throw new UsageException("check-stock takes no arguments");
+        }
+        Map<UUID, Integer> balances = supabaseService.getAllStockBalances();
+        long[] negative = {0};
+        long[] low = {0};
+        int checked = supabaseService.streamItems(SupabaseService.ITEM_PAGE_SIZE, SupabaseService.ItemProjection.TABLE, page -> {
+            for (Item item : page) {
+                int stock = balances.getOrDefault(item.getId(), 0);
+                if (stock < 0) {
+                    negative[0]++;
+                    out.println("NEGATIVE\t" + item.getItemCode() + "\t" + item.getName() + "\t" + stock);
+                } else if (stock < item.getMinStock()) {
+                    low[0]++;
+                    out.println("LOW\t" + item.getItemCode() + "\t" + item.getName() + "\t" + stock + "\t" + item.getMinStock());
+                }
+            }
+        });
+        err.println("Checked " + checked + " items: " + negative[0] + " negative, " + low[0] + " below minimum");
+        return negative[0] + low[0] == 0 ? EXIT_OK : EXIT_CHECK_FAILED;
+    }
+
+    private static Path existingFile(String name) {
+        Path file = Path.of(name);
+        if (!Files.isRegularFile(file)) {
+            throw new UsageException("No such file: " + name);
+        }
+        return file;
+    }
+
+    private static LocalDate date(String text) {
+        try {
+            return LocalDate.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new UsageException("Not a date (expected YYYY-MM-DD): " + text);
+        }
+    }
+
+    private static void printUsage(PrintStream stream) {
+        stream.println("""
+            Usage: inventory <command> [arguments]
+
+              import-receipts [--dry-run] <receipts.csv[.gz]>
+                  Record supplier receipts as IN transactions. Columns: date,reference,item_code,qty
+                  and optionally unit_price,notes. Re-importing the same file does not duplicate them.
+              export-report <start-date> <end-date> <report.csv[.gz]>
+                  Write the transaction report for the date range (YYYY-MM-DD, inclusive).
+              export-stock <stock.csv[.gz]>
+                  Write every active item with its current stock.
+              check-stock
+                  List items with negative stock or below their minimum stock.
+
+            Exit codes: 0 success, 1 failed, 2 bad usage, 3 check-stock found problems""");
+    }
+
+    private static class UsageException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        UsageException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.inventory.controller;
+
+import com.inventory.model.Item;
+import java.util.Collections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+
+/**
+ * The rows of an {@link ItemStoreList} that pass a filter. Unlike a FilteredList, which builds
+ * every row as an {@link Item} to test its predicate, the filter names the matching store rows
+ * directly (for the Items search, from the trigram index's hits), so only displayed rows are
+ * ever built.
+ * <p>
+ * Without a filter every change of the source is passed through; with one the matches are
+ * recomputed after each change and reported as one replacement. FX thread only.
+ */
+class FilteredItemStoreList extends ObservableListBase<Item> {
+
+    /**
+     * Computes the rows of the source that pass, in ascending order.
+     */
+    interface RowFilter {
+        int[] matchingRows();
+    }
+
+    private final ObservableList<Item> source;
+    private RowFilter filter;
+    // null while unfiltered
+    private int[] rows;
+
+    FilteredItemStoreList(ObservableList<Item> source) {
+        this.source = source;
+        source.addListener((ListChangeListener<Item>) change -> {
+            if (filter == null) {
+                forward(change);
+            } else {
+                refilter();
+            }
+        });
+    }
+
+    /**
+     * Shows only the rows {@code filter} names, or every row when it is null.
+     */
+    void setFilter(RowFilter filter) {
+        if (filter == null && this.filter == null) {
+            return;
+        }
+        this.filter = filter;
+        refilter();
+    }
+
+    @Override
+    public Item get(int index) {
+        if (rows == null) {
+            return source.get(index);
+        }
+        if (index < 0 || index >= rows.length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return source.get(rows[index]);
+    }
+
+    @Override
+    public int size() {
+        return rows == null ? source.size() : rows.length;
+    }
+
+    private void refilter() {
+        int oldSize = size();
+        rows = filter == null ? null : filter.matchingRows();
+        beginChange();
+        if (oldSize > 0) {
+            nextRemove(0, Collections.nCopies(oldSize, null));
+        }
+        if (size() > 0) {
+            nextAdd(0, size());
+        }
+        endChange();
+    }
+
+    private void forward(ListChangeListener.Change<? extends Item> change) {
+        beginChange();
+        while (change.next()) {
+            if (change.wasReplaced()) {
+                nextReplace(change.getFrom(), change.getTo(), change.getRemoved());
+            } else if (change.wasRemoved()) {
+                nextRemove(change.getFrom(), change.getRemoved());
+            } else if (change.wasAdded()) {
+                nextAdd(change.getFrom(), change.getTo());
+            }
+        }
+        endChange();
+    }
+}
@@ -3,12 +3,14 @@ package com.inventory.controller;
 import com.inventory.model.Item;
 import com.inventory.service.SupabaseService;
 import com.inventory.util.PalindromeUtil;
-import com.inventory.util.ConfigManager;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 import java.time.LocalDateTime;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,10 +25,19 @@ public class ItemDialogController {
     @FXML private Label palindromeLabel;
     
     private Item item;
-    private final SupabaseService supabaseService = new SupabaseService(ConfigManager.getSupabaseUrl(), ConfigManager.getSupabaseApiKey());
+    private final SupabaseService supabaseService = SupabaseService.getInstance();
     
+    /**
+     * Prepares the dialog for editing {@code item}, or for a new item when null. The dialog is
+     * reused, so everything left over from the previous use is cleared.
+     */
     public void setItem(Item item) {
         this.item = item;
+        itemCodeField.clear();
+        nameField.clear();
+        categoryField.clear();
+        unitField.clear();
+        minStockField.clear();
         if (item != null) {
             // Edit mode
             itemCodeField.setText(item.getItemCode());
@@ -94,7 +105,8 @@ public class ItemDialogController {
             }
             
             // Create or update item
-            if (item == null) {
+            boolean isNew = item == null;
+            if (isNew) {
                 // New item
                 item = new Item();
                 item.setId(UUID.randomUUID());
@@ -109,15 +121,19 @@ public class ItemDialogController {
             item.setPalindrome(PalindromeUtil.isPalindrome(item.getName()));
             item.setActive(true);
             
-            // Save to Supabase
-            if (item.getId() == null) {
-                supabaseService.createItem(item);
-            } else {
-                supabaseService.updateItem(item);
-            }
-            
-            // Close dialog
-            closeDialog();
+            // Save to Supabase off the FX thread, close the dialog once it lands
+            CompletableFuture<Void> saved = isNew
+                ? supabaseService.createItemAsync(item)
+                : supabaseService.updateItemAsync(item);
+            saved.whenCompleteAsync((_, error) -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    logger.error("Error saving item", cause);
+                    showError("Error", "Failed to save item to Supabase: " + cause.getMessage());
+                    return;
+                }
+                closeDialog();
+            }, Platform::runLater);
             
         } catch (Exception e) {
             logger.error("Error saving item", e);
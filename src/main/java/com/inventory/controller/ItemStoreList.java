@@ -0,0 +1,81 @@
+package com.inventory.controller;
+
+import com.inventory.model.Item;
+import com.inventory.service.ItemStore;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import javafx.collections.ObservableListBase;
+
+/**
+ * Observable view of an {@link ItemStore} for tables, filters and pickers. Reads return the
+ * store's row views; bulk changes are applied to the store and reported as one list change.
+ * A {@link #clear} reports its removed rows as {@code null}s. FX thread only.
+ */
+class ItemStoreList extends ObservableListBase<Item> {
+    private final ItemStore store;
+
+    ItemStoreList(ItemStore store) {
+        this.store = store;
+        store.setListener(new ItemStore.Listener() {
+            @Override
+            public void added(int from, int to) {
+                beginChange();
+                nextAdd(from, to);
+                endChange();
+            }
+
+            @Override
+            public void replaced(int row, Item previous) {
+                beginChange();
+                nextSet(row, previous);
+                endChange();
+            }
+
+            @Override
+            public void removed(int[] rows, List<Item> removed) {
+                beginChange();
+                for (int i = 0; i < rows.length; i++) {
+                    // Each earlier removal moved the later rows up by one
+                    nextRemove(rows[i] - i, removed.get(i));
+                }
+                endChange();
+            }
+
+            @Override
+            public void cleared(int previousSize) {
+                // Building every removed row would cost as much as the catalogue itself
+                beginChange();
+                nextRemove(0, Collections.nCopies(previousSize, null));
+                endChange();
+            }
+        });
+    }
+
+    @Override
+    public Item get(int index) {
+        return store.get(index);
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Item> items) {
+        store.addAll(List.copyOf(items));
+        return !items.isEmpty();
+    }
+
+    @Override
+    public boolean setAll(Collection<? extends Item> items) {
+        store.clear();
+        return addAll(items);
+    }
+
+    @Override
+    public void clear() {
+        store.clear();
+    }
+}
@@ -1,7 +1,25 @@
 package com.inventory.controller;
 
 import com.inventory.model.*;
+import com.inventory.service.ChangeFeed;
+import com.inventory.service.CoalescingChangeListener;
+import com.inventory.service.CsvExporter;
+import com.inventory.service.EndpointStats;
+import com.inventory.service.InventoryValuation;
+import com.inventory.service.ItemCatalogSync;
+import com.inventory.service.ItemStore;
+import com.inventory.service.LocalChangeFeed;
+import com.inventory.service.LowStockMonitor;
+import com.inventory.service.RealtimeChangeFeed;
+import com.inventory.service.RequestMetrics;
+import com.inventory.service.StockSnapshotService;
 import com.inventory.service.SupabaseService;
+import com.inventory.service.SupabaseTransport;
+import com.inventory.service.TransactionJournal;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -9,26 +27,69 @@ import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import javafx.util.StringConverter;
+import javafx.concurrent.Task;
+import javafx.stage.FileChooser;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.scene.control.cell.PropertyValueFactory;
+import java.io.File;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.inventory.util.ConfigManager;
+import com.inventory.util.LogHistogram;
+import com.inventory.util.TrigramIndex;
 import com.inventory.model.Item;
 import com.inventory.model.Transaction;
 
 public class MainController {
     private static final Logger logger = LoggerFactory.getLogger(MainController.class);
+    private static final Executor FX_THREAD = Platform::runLater;
+    private static final int ITEM_WINDOW_SIZE = 200;
+    private static final int ITEM_WINDOW_CACHE_PAGES = 20;
+    private static final String REPORT_TRANSACTIONS = "Transactions";
+    private static final String REPORT_DAILY_SUMMARY = "Daily Summary";
+    private static final String REPORT_WEEKLY_SUMMARY = "Weekly Summary";
+    private static final String DEFAULT_LOCATION = "Main Warehouse";
     
     // Services
-    private final SupabaseService supabaseService = new SupabaseService(ConfigManager.getSupabaseUrl(), ConfigManager.getSupabaseApiKey());
+    private final SupabaseService supabaseService = SupabaseService.getInstance();
+    private final ItemCatalogSync itemSync = new ItemCatalogSync(supabaseService);
+    private final StockSnapshotService stockSnapshot = new StockSnapshotService(supabaseService, ConfigManager.getStockSnapshotMaxAge());
+    private final InventoryValuation valuation = new InventoryValuation(supabaseService, ConfigManager.getValuationRefreshInterval());
+    private final LowStockMonitor lowStock = new LowStockMonitor(stockSnapshot::getStock);
+    private final AtomicBoolean reorderRefreshQueued = new AtomicBoolean();
+    private ChangeFeed changeFeed;
+    // How long a runLater waits for the FX thread: tells a busy UI apart from a slow server
+    private final LogHistogram fxDelayMicros = new LogHistogram();
     
     // UI Components
     @FXML private Label statusLabel;
@@ -51,17 +112,25 @@ public class MainController {
     @FXML private ComboBox<Item> receiveItemComboBox;
     @FXML private TextField receiveQtyField;
     @FXML private TextField receivePriceField;
-    @FXML private ComboBox<String> receiveLocationComboBox;
+    @FXML private ComboBox<Location> receiveLocationComboBox;
     @FXML private TextArea receiveNotesArea;
+    @FXML private TableView<CartLine> receiveLinesTable;
+    @FXML private TableColumn<CartLine, String> receiveLineItemColumn;
+    @FXML private TableColumn<CartLine, Integer> receiveLineQtyColumn;
+    @FXML private TableColumn<CartLine, BigDecimal> receiveLinePriceColumn;
     
     // Issue Tab
     @FXML private TextField issueReferenceField;
     @FXML private DatePicker issueDatePicker;
     @FXML private ComboBox<Item> issueItemComboBox;
     @FXML private TextField issueQtyField;
-    @FXML private ComboBox<String> issueLocationComboBox;
+    @FXML private ComboBox<Location> issueLocationComboBox;
     @FXML private ComboBox<String> issueConditionComboBox;
     @FXML private TextArea issueNotesArea;
+    @FXML private TableView<CartLine> issueLinesTable;
+    @FXML private TableColumn<CartLine, String> issueLineItemColumn;
+    @FXML private TableColumn<CartLine, Integer> issueLineQtyColumn;
+    @FXML private TableColumn<CartLine, String> issueLineConditionColumn;
     
     // Reports Tab
     @FXML private DatePicker reportStartDate;
@@ -73,16 +142,109 @@ public class MainController {
     @FXML private TableColumn<SupabaseService.TransactionReportRow, String> reportItemColumn;
     @FXML private TableColumn<SupabaseService.TransactionReportRow, Integer> reportQtyColumn;
     @FXML private TableColumn<SupabaseService.TransactionReportRow, String> reportNotesColumn;
+    @FXML private ComboBox<String> reportModeComboBox;
+    @FXML private TableView<SupabaseService.MovementSummaryRow> summaryTable;
+    @FXML private TableColumn<SupabaseService.MovementSummaryRow, LocalDate> summaryPeriodColumn;
+    @FXML private TableColumn<SupabaseService.MovementSummaryRow, String> summaryCodeColumn;
+    @FXML private TableColumn<SupabaseService.MovementSummaryRow, String> summaryItemColumn;
+    @FXML private TableColumn<SupabaseService.MovementSummaryRow, Integer> summaryInColumn;
+    @FXML private TableColumn<SupabaseService.MovementSummaryRow, Integer> summaryOutColumn;
+    @FXML private TableColumn<SupabaseService.MovementSummaryRow, Integer> summaryDispositionColumn;
+    @FXML private TableColumn<SupabaseService.MovementSummaryRow, Integer> summaryAdjustColumn;
+    @FXML private TableColumn<SupabaseService.MovementSummaryRow, BigDecimal> summaryInValueColumn;
+    @FXML private TableColumn<SupabaseService.MovementSummaryRow, BigDecimal> summaryOutValueColumn;
+    @FXML private ProgressBar exportProgressBar;
+    @FXML private Label valuationTotalsLabel;
+    @FXML private Label reorderSummaryLabel;
+    @FXML private TableView<LowStockMonitor.Shortage> reorderTable;
+    @FXML private TableColumn<LowStockMonitor.Shortage, String> reorderCodeColumn;
+    @FXML private TableColumn<LowStockMonitor.Shortage, String> reorderItemColumn;
+    @FXML private TableColumn<LowStockMonitor.Shortage, Integer> reorderStockColumn;
+    @FXML private TableColumn<LowStockMonitor.Shortage, Integer> reorderMinStockColumn;
+    @FXML private TableColumn<LowStockMonitor.Shortage, Integer> reorderShortfallColumn;
+    
+    // Sync Issues Tab
+    @FXML private Label rejectedSummaryLabel;
+    @FXML private TableView<TransactionJournal.Rejected> rejectedTable;
+    @FXML private TableColumn<TransactionJournal.Rejected, String> rejectedAtColumn;
+    @FXML private TableColumn<TransactionJournal.Rejected, String> rejectedDateColumn;
+    @FXML private TableColumn<TransactionJournal.Rejected, String> rejectedTypeColumn;
+    @FXML private TableColumn<TransactionJournal.Rejected, String> rejectedReferenceColumn;
+    @FXML private TableColumn<TransactionJournal.Rejected, Integer> rejectedLinesColumn;
+    @FXML private TableColumn<TransactionJournal.Rejected, String> rejectedReasonColumn;
+    @FXML private TableView<InventoryValuation.ItemValuation> valuationTable;
+    @FXML private TableColumn<InventoryValuation.ItemValuation, String> valuationCodeColumn;
+    @FXML private TableColumn<InventoryValuation.ItemValuation, String> valuationItemColumn;
+    @FXML private TableColumn<InventoryValuation.ItemValuation, Long> valuationQtyColumn;
+    @FXML private TableColumn<InventoryValuation.ItemValuation, BigDecimal> valuationUnitCostColumn;
+    @FXML private TableColumn<InventoryValuation.ItemValuation, BigDecimal> valuationAverageColumn;
+    @FXML private TableColumn<InventoryValuation.ItemValuation, BigDecimal> valuationFifoColumn;
+    @FXML private Button cancelExportButton;
     
     // Settings Tab
     @FXML private CheckBox countNonUsableCheckBox;
     @FXML private CheckBox allowNegativeStockCheckBox;
     @FXML private TextField supabaseUrlField;
     @FXML private TextField supabaseApiKeyField;
+    @FXML private ComboBox<DayOfWeek> weekStartDayComboBox;
+    @FXML private TableView<EndpointStats> diagnosticsTable;
+    @FXML private TableColumn<EndpointStats, String> diagOperationColumn;
+    @FXML private TableColumn<EndpointStats, String> diagEndpointColumn;
+    @FXML private TableColumn<EndpointStats, Long> diagCountColumn;
+    @FXML private TableColumn<EndpointStats, Long> diagErrorsColumn;
+    @FXML private TableColumn<EndpointStats, Double> diagP50Column;
+    @FXML private TableColumn<EndpointStats, Double> diagP99Column;
+    @FXML private TableColumn<EndpointStats, Double> diagMaxColumn;
+    @FXML private TableColumn<EndpointStats, Long> diagSentColumn;
+    @FXML private TableColumn<EndpointStats, Long> diagReceivedColumn;
+    @FXML private Label fxDelayLabel;
     
     // Data
-    private ObservableList<Item> itemsList = FXCollections.observableArrayList();
-    private FilteredList<Item> filteredItems;
+    // Requested by Main while the FXML was still being parsed; consumed by the first loadItems()
+    private CompletableFuture<SupabaseService.ItemPage> preloadedItems;
+    // What the Settings fields were last filled with, to tell the user's unsaved edits apart
+    private SettingsValues shownSettings;
+    // The catalogue is held column-wise; itemsList hands out row views of it
+    private final ItemStore itemStore = new ItemStore();
+    private final ObservableList<Item> itemsList = new ItemStoreList(itemStore);
+    private FilteredItemStoreList filteredItems;
+    // Catalogues above the configured size are browsed through server-side pages instead of itemsList
+    private PagedItemList pagedItems;
+    private PagedItemList pickerItems;
+    private int loadGeneration;
+    private final TrigramIndex searchIndex = new TrigramIndex();
+    private final PauseTransition searchDebounce = new PauseTransition(Duration.millis(150));
+    private final ObservableList<SupabaseService.TransactionReportRow> reportRows = FXCollections.observableArrayList();
+    private final ObservableList<SupabaseService.MovementSummaryRow> summaryRows = FXCollections.observableArrayList();
+    private final ObservableList<Location> locations = FXCollections.observableArrayList();
+    private final ObservableList<InventoryValuation.ItemValuation> valuationRows = FXCollections.observableArrayList();
+    private final Map<UUID, Integer> valuationRowIndex = new HashMap<>();
+    private final ObservableList<LowStockMonitor.Shortage> reorderRows = FXCollections.observableArrayList();
+    private final ObservableList<TransactionJournal.Rejected> rejectedRows = FXCollections.observableArrayList();
+    private TransactionJournal transactionJournal;
+    private AtomicBoolean reportCancellation;
+    private final CsvExporter csvExporter = new CsvExporter(supabaseService);
+    private Task<Long> exportTask;
+    private final ObservableList<CartLine> receiveCart = FXCollections.observableArrayList();
+    private final ObservableList<CartLine> issueCart = FXCollections.observableArrayList();
+    
+    // One pending line of a receipt/issue, with its item kept for display
+    private record CartLine(Item item, TransactionLine line) { }
+    
+    private record SettingsValues(boolean countNonUsable, boolean allowNegativeStock, String supabaseUrl,
+                                  String supabaseApiKey, DayOfWeek weekStartDay) { }
+    
+    // Built once after startup and reused for every add/edit
+    private Stage itemDialog;
+    private ItemDialogController itemDialogController;
+    
+    public MainController() {
+        this(null);
+    }
+    
+    public MainController(CompletableFuture<SupabaseService.ItemPage> preloadedItems) {
+        this.preloadedItems = preloadedItems;
+    }
     
     @FXML
     public void initialize() {
@@ -90,9 +252,18 @@ public class MainController {
             setupItemsTable();
             setupReceiveTab();
             setupIssueTab();
+            loadLocations();
             setupReportsTab();
+            setupValuationTab();
+            setupReorderTab();
+            setupSyncIssuesTab();
             setupSettingsTab();
+            setupDiagnostics();
+            openTransactionJournal();
             loadItems();
+            startChangeFeed();
+            // Once the first frame is up, use the idle time to build the item dialog
+            Platform.runLater(this::preloadItemDialog);
             updateStatus("Ready - Connected to Supabase");
         } catch (Exception e) {
             logger.error("Error initializing main controller", e);
@@ -110,38 +281,80 @@ public class MainController {
         palindromeColumn.setCellValueFactory(new PropertyValueFactory<>("palindrome"));
         currentStockColumn.setCellValueFactory(new PropertyValueFactory<>("currentStock"));
         
-        // Add current stock column (computed)
+        // Add current stock column (computed from the in-memory snapshot, no I/O per row)
         currentStockColumn.setCellValueFactory(cellData -> {
             Item item = cellData.getValue();
-            try {
-                int stock = supabaseService.getCurrentStock(item.getId());
-                return new javafx.beans.property.SimpleIntegerProperty(stock).asObject();
-            } catch (Exception e) {
-                return new javafx.beans.property.SimpleIntegerProperty(0).asObject();
+            if (item == null) {
+                return null; // paged row not loaded yet
             }
+            return new javafx.beans.property.SimpleIntegerProperty(stockSnapshot.getStock(item.getId())).asObject();
         });
+        stockSnapshot.setOnRefresh(() -> Platform.runLater(itemsTable::refresh));
+        stockSnapshot.setOnChange(lowStock::stockChanged);
+        stockSnapshot.start();
         
-        filteredItems = new FilteredList<>(itemsList, _ -> true);
-        itemsTable.setItems(filteredItems);
-        
-        // Search functionality
-        searchField.textProperty().addListener((_, __, newValue) -> {
-            filteredItems.setPredicate(item -> {
-                if (newValue == null || newValue.isEmpty()) {
-                    return true;
+        // Keep the search index in step with the list; an updated item arrives as a replacement.
+        // Registered before the filtered view, which re-runs the search on every change.
+        itemsList.addListener((ListChangeListener<Item>) change -> {
+            if (itemsList.isEmpty()) {
+                // A clear does not build the removed rows
+                searchIndex.clear();
+                return;
+            }
+            while (change.next()) {
+                for (Item removed : change.getRemoved()) {
+                    searchIndex.remove(removed.getId());
                 }
-                String lowerCaseFilter = newValue.toLowerCase();
-                return item.getItemCode().toLowerCase().contains(lowerCaseFilter) ||
-                       item.getName().toLowerCase().contains(lowerCaseFilter) ||
-                       item.getCategory().toLowerCase().contains(lowerCaseFilter);
-            });
+                for (Item added : change.getAddedSubList()) {
+                    indexItem(added);
+                }
+            }
         });
+        filteredItems = new FilteredItemStoreList(itemsList);
+        itemsTable.setItems(filteredItems);
+        
+        // Search functionality: filter once typing pauses, using the trigram index
+        searchDebounce.setOnFinished(_ -> applySearchFilter());
+        searchField.textProperty().addListener((_, __, ___) -> searchDebounce.playFromStart());
+    }
+    
+    private void indexItem(Item item) {
+        searchIndex.put(item.getId(), item.getItemCode(), item.getName(), item.getCategory());
+    }
+    
+    private void applySearchFilter() {
+        String query = searchField.getText();
+        if (pagedItems != null) {
+            reloadPagedItems(query);
+            return;
+        }
+        if (query == null || query.isEmpty()) {
+            filteredItems.setFilter(null);
+            return;
+        }
+        filteredItems.setFilter(() -> matchingRows(query));
+    }
+    
+    // Store rows of the search hits, found from the hits' ids rather than by building every row
+    private int[] matchingRows(String query) {
+        BitSet hits = searchIndex.search(query);
+        int[] rows = new int[hits.cardinality()];
+        int count = 0;
+        for (int ordinal = hits.nextSetBit(0); ordinal >= 0; ordinal = hits.nextSetBit(ordinal + 1)) {
+            UUID id = searchIndex.idAt(ordinal);
+            int row = id == null ? -1 : itemStore.rowOf(id);
+            if (row >= 0) {
+                rows[count++] = row;
+            }
+        }
+        rows = Arrays.copyOf(rows, count);
+        Arrays.sort(rows);
+        return rows;
     }
     
     private void setupReceiveTab() {
         receiveDatePicker.setValue(LocalDate.now());
-        receiveLocationComboBox.getItems().addAll("Main Warehouse", "Storage A", "Storage B");
-        receiveLocationComboBox.setValue("Main Warehouse");
+        receiveLocationComboBox.setItems(locations);
         
         // Load items into combo box
         receiveItemComboBox.setItems(itemsList);
@@ -157,12 +370,34 @@ public class MainController {
             }
         });
         receiveItemComboBox.setButtonCell(receiveItemComboBox.getCellFactory().call(null));
+        
+        // Lines collected for a multi-line receipt
+        receiveLineItemColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().item().toString()));
+        receiveLineQtyColumn.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().line().getQty()));
+        receiveLinePriceColumn.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().line().getUnitPrice()));
+        receiveLinesTable.setItems(receiveCart);
+    }
+    
+    private void loadLocations() {
+        supabaseService.getLocationsAsync().whenCompleteAsync((loaded, error) -> {
+            if (error != null) {
+                // Lines without a location are booked to the server's default location
+                logger.warn("Failed to load locations", unwrap(error));
+                return;
+            }
+            locations.setAll(loaded);
+            Location initial = loaded.stream()
+                .filter(location -> DEFAULT_LOCATION.equals(location.getName()))
+                .findFirst()
+                .orElse(loaded.isEmpty() ? null : loaded.get(0));
+            receiveLocationComboBox.setValue(initial);
+            issueLocationComboBox.setValue(initial);
+        }, FX_THREAD);
     }
     
     private void setupIssueTab() {
         issueDatePicker.setValue(LocalDate.now());
-        issueLocationComboBox.getItems().addAll("Main Warehouse", "Storage A", "Storage B");
-        issueLocationComboBox.setValue("Main Warehouse");
+        issueLocationComboBox.setItems(locations);
         issueConditionComboBox.getItems().addAll("USABLE", "NOT_USABLE");
         issueConditionComboBox.setValue("USABLE");
         
@@ -180,6 +415,12 @@ public class MainController {
             }
         });
         issueItemComboBox.setButtonCell(issueItemComboBox.getCellFactory().call(null));
+        
+        // Lines collected for a multi-line issue
+        issueLineItemColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().item().toString()));
+        issueLineQtyColumn.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().line().getQty()));
+        issueLineConditionColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().line().getConditionStatus().name()));
+        issueLinesTable.setItems(issueCart);
     }
     
     private void setupReportsTab() {
@@ -192,27 +433,532 @@ public class MainController {
         reportItemColumn.setCellValueFactory(new PropertyValueFactory<>("itemName"));
         reportQtyColumn.setCellValueFactory(new PropertyValueFactory<>("qty"));
         reportNotesColumn.setCellValueFactory(new PropertyValueFactory<>("notes"));
+        reportTable.setItems(reportRows);
+        
+        summaryPeriodColumn.setCellValueFactory(new PropertyValueFactory<>("periodStart"));
+        summaryCodeColumn.setCellValueFactory(new PropertyValueFactory<>("itemCode"));
+        summaryItemColumn.setCellValueFactory(new PropertyValueFactory<>("itemName"));
+        summaryInColumn.setCellValueFactory(new PropertyValueFactory<>("inQty"));
+        summaryOutColumn.setCellValueFactory(new PropertyValueFactory<>("outQty"));
+        summaryDispositionColumn.setCellValueFactory(new PropertyValueFactory<>("dispositionQty"));
+        summaryAdjustColumn.setCellValueFactory(new PropertyValueFactory<>("adjustQty"));
+        summaryInValueColumn.setCellValueFactory(new PropertyValueFactory<>("inValue"));
+        summaryOutValueColumn.setCellValueFactory(new PropertyValueFactory<>("outValue"));
+        summaryTable.setItems(summaryRows);
+        
+        // Summary modes read the daily/weekly rollups instead of individual transaction lines
+        reportModeComboBox.getItems().addAll(REPORT_TRANSACTIONS, REPORT_DAILY_SUMMARY, REPORT_WEEKLY_SUMMARY);
+        reportModeComboBox.setValue(REPORT_TRANSACTIONS);
+        reportModeComboBox.valueProperty().addListener((_, __, mode) -> {
+            cancelReport();
+            boolean summary = !REPORT_TRANSACTIONS.equals(mode);
+            reportTable.setVisible(!summary);
+            reportTable.setManaged(!summary);
+            summaryTable.setVisible(summary);
+            summaryTable.setManaged(summary);
+        });
+        
+        // A running report is for the old range once either date changes
+        reportStartDate.valueProperty().addListener((_, __, ___) -> cancelReport());
+        reportEndDate.valueProperty().addListener((_, __, ___) -> cancelReport());
+    }
+    
+    private void setupValuationTab() {
+        valuationCodeColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().itemCode()));
+        valuationItemColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().itemName()));
+        valuationQtyColumn.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().quantity()));
+        valuationUnitCostColumn.setCellValueFactory(cellData ->
+            new ReadOnlyObjectWrapper<>(InventoryValuation.toAmount(cellData.getValue().averageUnitCost())));
+        valuationAverageColumn.setCellValueFactory(cellData ->
+            new ReadOnlyObjectWrapper<>(InventoryValuation.toAmount(cellData.getValue().averageValue())));
+        valuationFifoColumn.setCellValueFactory(cellData ->
+            new ReadOnlyObjectWrapper<>(InventoryValuation.toAmount(cellData.getValue().fifoValue())));
+        valuationTable.setItems(valuationRows);
+        valuationTotalsLabel.setText("Calculating valuation...");
+        
+        valuation.setOnChange(changed -> Platform.runLater(() -> applyValuations(changed)));
+        valuation.start();
+    }
+    
+    // Replaces the rows of changed items in place; a large batch (a rebuild) replaces the list once
+    private void applyValuations(List<InventoryValuation.ItemValuation> changed) {
+        List<InventoryValuation.ItemValuation> rows = changed.size() > 1000 ? new ArrayList<>(valuationRows) : valuationRows;
+        for (InventoryValuation.ItemValuation row : changed) {
+            Integer index = valuationRowIndex.get(row.itemId());
+            if (index != null) {
+                rows.set(index, row);
+            } else {
+                valuationRowIndex.put(row.itemId(), rows.size());
+                rows.add(row);
+            }
+        }
+        if (rows != valuationRows) {
+            valuationRows.setAll(rows);
+        }
+        long averageTotal = 0;
+        long fifoTotal = 0;
+        for (InventoryValuation.ItemValuation row : valuationRows) {
+            averageTotal += row.averageValue();
+            fifoTotal += row.fifoValue();
+        }
+        valuationTotalsLabel.setText(valuationRows.size() + " items - total value "
+            + InventoryValuation.toAmount(averageTotal) + " (weighted average), "
+            + InventoryValuation.toAmount(fifoTotal) + " (FIFO)");
+    }
+    
+    @FXML
+    private void refreshValuation() {
+        valuation.refreshSoon();
+    }
+    
+    @FXML
+    private void rebuildValuation() {
+        valuationTotalsLabel.setText("Rebuilding valuation...");
+        valuation.rebuildAsync().whenCompleteAsync((_, error) -> {
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                logger.error("Error rebuilding valuation", cause);
+                showError("Error", "Failed to rebuild valuation: " + cause.getMessage());
+            }
+        }, FX_THREAD);
+    }
+    
+    private void setupReorderTab() {
+        reorderCodeColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().itemCode()));
+        reorderItemColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().itemName()));
+        reorderStockColumn.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().stock()));
+        reorderMinStockColumn.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().minStock()));
+        reorderShortfallColumn.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().shortfall()));
+        reorderTable.setItems(reorderRows);
+        reorderSummaryLabel.setText("Checking minimum stock...");
+        
+        lowStock.setListener((previous, current) -> {
+            if (previous == null && current != null) {
+                Platform.runLater(() -> updateStatus("Low stock: " + current.itemCode() + " - " + current.stock()
+                    + " left, minimum " + current.minStock()));
+            }
+            refreshReorderSoon();
+        });
+        // A threshold is checked against the snapshot as it loads, so wait until the balances are real
+        stockSnapshot.whenLoaded()
+            .thenCompose(_ -> supabaseService.streamItemsWithMinStockAsync(lowStock::load))
+            .whenCompleteAsync((_, error) -> {
+                if (error != null) {
+                    logger.error("Error loading minimum stock levels", unwrap(error));
+                    reorderSummaryLabel.setText("Failed to load minimum stock levels");
+                    return;
+                }
+                refreshReorder();
+                int shortages = lowStock.getShortageCount();
+                if (shortages > 0) {
+                    updateStatus(shortages + " item(s) below minimum stock");
+                }
+            }, FX_THREAD);
+    }
+    
+    private void setupSyncIssuesTab() {
+        rejectedAtColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(
+            cellData.getValue().rejectedAt().withNano(0).toString().replace('T', ' ')));
+        rejectedDateColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(
+            String.valueOf(cellData.getValue().transaction().getTxDate())));
+        rejectedTypeColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(
+            cellData.getValue().transaction().getTxType().name()));
+        rejectedReferenceColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(
+            cellData.getValue().transaction().getReference()));
+        rejectedLinesColumn.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(
+            cellData.getValue().transaction().getLines().size()));
+        rejectedReasonColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().reason()));
+        rejectedTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        rejectedTable.setItems(rejectedRows);
+        rejectedSummaryLabel.setText("No rejected transactions");
+    }
+    
+    // The clerk was told these were saved, so a new rejection is raised rather than only logged
+    private void showRejected(List<TransactionJournal.Rejected> rejected) {
+        int before = rejectedRows.size();
+        rejectedRows.setAll(rejected);
+        rejectedSummaryLabel.setText(rejected.isEmpty()
+            ? "No rejected transactions"
+            : rejected.size() + " transaction(s) rejected by Supabase; retry them once the cause is fixed");
+        if (rejected.size() > before) {
+            updateStatus(rejected.size() + " transaction(s) rejected by Supabase - see Sync Issues");
+            TransactionJournal.Rejected latest = rejected.get(rejected.size() - 1);
+            showWarning("Transaction Rejected", "Supabase rejected the " + latest.transaction().getTxType()
+                + " transaction of " + latest.transaction().getTxDate()
+                + ". It was not applied to stock and is kept in the Sync Issues tab.\n\n" + latest.reason());
+        }
+    }
+    
+    @FXML
+    private void retryRejectedTransactions() {
+        List<UUID> selected = selectedRejectedIds();
+        if (selected.isEmpty()) {
+            showWarning("No Selection", "Please select the transactions to retry.");
+            return;
+        }
+        transactionJournal.retryRejected(selected);
+        updateStatus(selected.size() + " transaction(s) queued to sync again");
+    }
+    
+    @FXML
+    private void discardRejectedTransactions() {
+        List<UUID> selected = selectedRejectedIds();
+        if (selected.isEmpty()) {
+            showWarning("No Selection", "Please select the transactions to discard.");
+            return;
+        }
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("Confirm Discard");
+        alert.setHeaderText("Discard " + selected.size() + " rejected transaction(s)?");
+        alert.setContentText("They will never be sent to Supabase.");
+        Optional<ButtonType> result = alert.showAndWait();
+        if (result.isPresent() && result.get() == ButtonType.OK) {
+            transactionJournal.discardRejected(selected);
+        }
+    }
+    
+    private List<UUID> selectedRejectedIds() {
+        if (transactionJournal == null) {
+            return List.of();
+        }
+        return rejectedTable.getSelectionModel().getSelectedItems().stream()
+            .map(rejected -> rejected.transaction().getId())
+            .toList();
+    }
+    
+    // Many shortages can change in one stock refresh; redraw the Reorder view once for all of them
+    private void refreshReorderSoon() {
+        if (reorderRefreshQueued.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                reorderRefreshQueued.set(false);
+                refreshReorder();
+            });
+        }
+    }
+    
+    private void refreshReorder() {
+        reorderRows.setAll(lowStock.getShortages());
+        reorderSummaryLabel.setText(reorderRows.isEmpty()
+            ? "All items are at or above their minimum stock"
+            : reorderRows.size() + " item(s) below minimum stock, largest shortfall first");
     }
     
     private void setupSettingsTab() {
-        countNonUsableCheckBox.setSelected(ConfigManager.isCountNonUsableAsOutgoing());
-        allowNegativeStockCheckBox.setSelected(ConfigManager.isAllowNegativeStock());
-        supabaseUrlField.setText(ConfigManager.getSupabaseUrl());
-        supabaseApiKeyField.setText(ConfigManager.getSupabaseApiKey());
+        weekStartDayComboBox.getItems().addAll(DayOfWeek.values());
+        weekStartDayComboBox.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(DayOfWeek day) {
+                return day == null ? "" : day.getDisplayName(TextStyle.FULL, Locale.getDefault());
+            }
+            
+            @Override
+            public DayOfWeek fromString(String text) {
+                return null;
+            }
+        });
+        showSettings();
+        // Edits made to config.properties by hand show up here without a restart
+        ConfigManager.addChangeListener(() -> Platform.runLater(this::showSettings));
+        loadWeekStartDay();
     }
     
-    private void loadItems() {
+    // The weekly rollup follows the database's setting, which another client may have changed
+    private void loadWeekStartDay() {
+        supabaseService.getWeekStartDayAsync().whenCompleteAsync((weekStart, error) -> {
+            if (error != null) {
+                logger.warn("Failed to read week start day from Supabase", unwrap(error));
+                return;
+            }
+            if (weekStart != ConfigManager.getWeekStartDay()) {
+                ConfigManager.setProperty("week_start_day", weekStart.getValue());
+                showSettings();
+            }
+        }, FX_THREAD);
+    }
+    
+    // Only fields still showing the previous values are refreshed, so an edit in progress survives a reload
+    private void showSettings() {
+        SettingsValues current = new SettingsValues(ConfigManager.isCountNonUsableAsOutgoing(),
+            ConfigManager.isAllowNegativeStock(),
+            ConfigManager.getConfiguredProperty("supabase.url"),
+            ConfigManager.getConfiguredProperty("supabase.api_key"),
+            ConfigManager.getWeekStartDay());
+        SettingsValues shown = shownSettings;
+        if (shown == null || countNonUsableCheckBox.isSelected() == shown.countNonUsable()) {
+            countNonUsableCheckBox.setSelected(current.countNonUsable());
+        }
+        if (shown == null || allowNegativeStockCheckBox.isSelected() == shown.allowNegativeStock()) {
+            allowNegativeStockCheckBox.setSelected(current.allowNegativeStock());
+        }
+        if (shown == null || Objects.equals(supabaseUrlField.getText(), shown.supabaseUrl())) {
+            supabaseUrlField.setText(current.supabaseUrl());
+        }
+        if (shown == null || Objects.equals(supabaseApiKeyField.getText(), shown.supabaseApiKey())) {
+            supabaseApiKeyField.setText(current.supabaseApiKey());
+        }
+        if (shown == null || weekStartDayComboBox.getValue() == shown.weekStartDay()) {
+            weekStartDayComboBox.setValue(current.weekStartDay());
+        }
+        shownSettings = current;
+        
+        Set<String> pending = ConfigManager.getPendingRestartKeys();
+        if (!pending.isEmpty()) {
+            updateStatus("Restart the application to apply: " + String.join(", ", pending));
+        }
+    }
+    
+    private void settingsSaved() {
+        showSettings();
+        Set<String> pending = ConfigManager.getPendingRestartKeys();
+        if (pending.isEmpty()) {
+            updateStatus("Settings saved successfully");
+            showInfo("Success", "Settings saved successfully!");
+        } else {
+            updateStatus("Settings saved - restart to apply: " + String.join(", ", pending));
+            showInfo("Success", "Settings saved successfully!\n\nRestart the application to apply: "
+                + String.join(", ", pending));
+        }
+    }
+    
+    private void setupDiagnostics() {
+        diagOperationColumn.setCellValueFactory(new PropertyValueFactory<>("operation"));
+        diagEndpointColumn.setCellValueFactory(new PropertyValueFactory<>("endpoint"));
+        diagCountColumn.setCellValueFactory(new PropertyValueFactory<>("count"));
+        diagErrorsColumn.setCellValueFactory(new PropertyValueFactory<>("errorCount"));
+        diagP50Column.setCellValueFactory(new PropertyValueFactory<>("p50Millis"));
+        diagP99Column.setCellValueFactory(new PropertyValueFactory<>("p99Millis"));
+        diagMaxColumn.setCellValueFactory(new PropertyValueFactory<>("maxMillis"));
+        diagSentColumn.setCellValueFactory(new PropertyValueFactory<>("bytesSent"));
+        diagReceivedColumn.setCellValueFactory(new PropertyValueFactory<>("bytesReceived"));
+        diagnosticsTable.getItems().setAll(RequestMetrics.getInstance().getAll());
+        
+        ScheduledExecutorService probe = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fx-delay-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        probe.scheduleWithFixedDelay(() -> {
+            long posted = System.nanoTime();
+            Platform.runLater(() -> fxDelayMicros.record((System.nanoTime() - posted) / 1_000));
+        }, 250, 250, TimeUnit.MILLISECONDS);
+        refreshDiagnostics();
+    }
+    
+    @FXML
+    private void refreshDiagnostics() {
+        // The stats objects are live; the table only needs to re-read them
+        diagnosticsTable.refresh();
+        fxDelayLabel.setText(String.format("FX thread delay: p50 %.1f ms, p99 %.1f ms, max %.1f ms",
+            fxDelayMicros.getValueAtQuantile(0.50) / 1_000.0, fxDelayMicros.getValueAtQuantile(0.99) / 1_000.0,
+            fxDelayMicros.getMax() / 1_000.0));
+    }
+    
+    @FXML
+    private void resetDiagnostics() {
+        RequestMetrics.getInstance().reset();
+        fxDelayMicros.reset();
+        refreshDiagnostics();
+    }
+    
+    private void openTransactionJournal() {
         try {
-            List<Item> items = supabaseService.getAllItems();
-            itemsList.clear();
-            itemsList.addAll(items);
-            updateStatus("Loaded " + items.size() + " items from Supabase");
-        } catch (Exception e) {
-            logger.error("Error loading items", e);
-            showError("Error", "Failed to load items from Supabase: " + e.getMessage());
+            TransactionJournal journal = TransactionJournal.open(
+                Paths.get(ConfigManager.getTransactionJournalFile()), supabaseService::sendTransaction);
+            journal.setOnRejectedChanged(rejected -> Platform.runLater(() -> showRejected(rejected)));
+            journal.setOnPendingChanged(pendingCount -> Platform.runLater(() -> {
+                if (pendingCount == 0) {
+                    stockSnapshot.refreshSoon();
+                    valuation.refreshSoon();
+                    updateStatus("All transactions synchronized with Supabase");
+                } else {
+                    updateStatus(pendingCount + " transaction(s) waiting to sync with Supabase");
+                }
+            }));
+            supabaseService.setTransactionJournal(journal);
+            transactionJournal = journal;
+            showRejected(journal.getRejected());
+        } catch (IOException e) {
+            // Without a journal transactions are still written, just synchronously
+            logger.error("Could not open transaction journal, writing directly to Supabase", e);
         }
     }
     
+    // The first page also carries the total, which decides between the in-memory list and paged browsing
+    private void loadItems() {
+        CompletableFuture<SupabaseService.ItemPage> firstPage = preloadedItems != null ? preloadedItems
+            : supabaseService.getItemsPageAsync(SupabaseService.ItemProjection.TABLE, null, 0, SupabaseService.ITEM_PAGE_SIZE);
+        preloadedItems = null;
+        firstPage.whenCompleteAsync((page, error) -> {
+            if (error != null) {
+                // The full load will report the problem
+                streamAllItems(null);
+            } else if (page.total() > ConfigManager.getPagedItemsThreshold()) {
+                showPagedItems(page.total());
+            } else {
+                ++loadGeneration;
+                itemSync.reset();
+                itemsList.setAll(page.items());
+                itemSync.track(page.items());
+                if (page.items().size() < page.total()) {
+                    streamAllItems(page.items().isEmpty() ? null : page.items().get(page.items().size() - 1).getId());
+                } else {
+                    updateStatus("Loaded " + itemsList.size() + " items from Supabase");
+                }
+            }
+        }, FX_THREAD);
+    }
+    
+    /**
+     * Streams active items into itemsList, replacing its contents, or appending after {@code afterId}
+     * when the list already holds everything up to that item.
+     */
+    private void streamAllItems(UUID afterId) {
+        // Pages are appended as they arrive; a newer load makes the pages of an older one obsolete
+        int generation = ++loadGeneration;
+        boolean[] firstPage = {afterId == null};
+        supabaseService.streamItemsAsync(SupabaseService.ItemProjection.TABLE, afterId, page -> Platform.runLater(() -> {
+            if (generation != loadGeneration) {
+                return;
+            }
+            if (firstPage[0]) {
+                firstPage[0] = false;
+                itemSync.reset();
+                itemsList.setAll(page);
+            } else {
+                itemsList.addAll(page);
+            }
+            itemSync.track(page);
+            updateStatus("Loading items... " + itemsList.size());
+        })).whenCompleteAsync((total, error) -> {
+            if (generation != loadGeneration) {
+                return;
+            }
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                logger.error("Error loading items", cause);
+                showError("Error", "Failed to load items from Supabase: " + cause.getMessage());
+                return;
+            }
+            if (firstPage[0]) {
+                itemSync.reset();
+                itemsList.clear();
+            }
+            updateStatus("Loaded " + itemsList.size() + " items from Supabase");
+        }, FX_THREAD);
+    }
+    
+    // Too many items to hold: the table and the pickers read windows of rows on demand, and search runs on the server
+    private void showPagedItems(long count) {
+        ++loadGeneration;
+        itemSync.reset();
+        itemsList.clear();
+        pagedItems = new PagedItemList((query, offset, limit) -> supabaseService.getItemsPageAsync(
+            SupabaseService.ItemProjection.TABLE, query, offset, limit), FX_THREAD, ITEM_WINDOW_SIZE, ITEM_WINDOW_CACHE_PAGES);
+        pickerItems = new PagedItemList((query, offset, limit) -> supabaseService.getItemsPageAsync(
+            SupabaseService.ItemProjection.PICKER, query, offset, limit), FX_THREAD, ITEM_WINDOW_SIZE, ITEM_WINDOW_CACHE_PAGES);
+        pagedItems.setOnError(error -> updateStatus("Some items could not be loaded: " + unwrap(error).getMessage()));
+        pickerItems.setOnError(error -> updateStatus("Some items could not be loaded: " + unwrap(error).getMessage()));
+        itemsTable.setItems(pagedItems);
+        // Rows are in server order; sorting would mean fetching all of them
+        itemsTable.getColumns().forEach(column -> column.setSortable(false));
+        for (ComboBox<Item> picker : List.of(receiveItemComboBox, issueItemComboBox)) {
+            // Otherwise the skin measures every row to size the popup
+            picker.getProperties().put("comboBoxRowsToMeasureWidth", 50);
+            picker.setItems(pickerItems);
+        }
+        pickerItems.reload(null);
+        reloadPagedItems(searchField.getText());
+        logger.info("{} items exceed the in-memory limit, browsing them in pages", count);
+    }
+    
+    private void reloadPagedItems(String query) {
+        pagedItems.reload(query).whenCompleteAsync((size, error) -> {
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                logger.error("Error loading items", cause);
+                showError("Error", "Failed to load items from Supabase: " + cause.getMessage());
+                return;
+            }
+            updateStatus(query == null || query.isBlank()
+                ? size + " items in Supabase (loaded as you scroll)"
+                : size + " items match \"" + query + "\"");
+        }, FX_THREAD);
+    }
+    
+    // Other clients' changes are pushed to us; bursts are applied as one batch on the FX thread
+    private void startChangeFeed() {
+        changeFeed = ConfigManager.isRealtimeEnabled()
+            ? new RealtimeChangeFeed(ConfigManager.getSupabaseUrl(), ConfigManager.getSupabaseApiKey(),
+                SupabaseTransport.getInstance().getHttpClient())
+            : new LocalChangeFeed();
+        changeFeed.start(new CoalescingChangeListener(FX_THREAD, this::applyChanges));
+    }
+    
+    private void applyChanges(CoalescingChangeListener.Batch batch) {
+        if (batch.resynchronize()) {
+            // Whatever happened while we were not subscribed has to be pulled
+            syncItems();
+            stockSnapshot.refreshSoon();
+            valuation.refreshSoon();
+        }
+        lowStock.itemsChanged(batch.items());
+        if (pagedItems != null) {
+            if (!batch.items().isEmpty() && !batch.resynchronize()) {
+                syncItems();
+            }
+        } else if (!batch.items().isEmpty()) {
+            // The filtered view re-runs the search itself
+            itemSync.merge(itemStore, batch.items());
+        }
+        if (!batch.stock().isEmpty()) {
+            stockSnapshot.update(batch.stock());
+            // A balance moved, so new lines were recorded somewhere
+            valuation.refreshSoon();
+        }
+        if (!batch.stockMoved().isEmpty()) {
+            refreshMovedStock(batch.stockMoved());
+        }
+        itemsTable.refresh();
+    }
+    
+    // The feed only names items whose per-location balance changed; their totals are read back in one request
+    private void refreshMovedStock(Set<UUID> itemIds) {
+        supabaseService.getCurrentStockAsync(itemIds).whenCompleteAsync((balances, error) -> {
+            if (error != null) {
+                logger.warn("Failed to read moved stock", unwrap(error));
+                stockSnapshot.refreshSoon();
+                return;
+            }
+            Map<UUID, Integer> totals = new HashMap<>(balances);
+            // No rows left means the item's balances were removed with it
+            itemIds.forEach(itemId -> totals.putIfAbsent(itemId, 0));
+            stockSnapshot.update(totals);
+            valuation.refreshSoon();
+            itemsTable.refresh();
+        }, FX_THREAD);
+    }
+    
+    // Pulls only the items changed since the last load/sync and merges them into itemStore
+    private void syncItems() {
+        if (pagedItems != null) {
+            // Cached pages may be out of date anywhere in the list; start over from the server
+            pickerItems.reload();
+            reloadPagedItems(searchField.getText());
+            return;
+        }
+        itemSync.fetchChanges().whenCompleteAsync((changes, error) -> {
+            if (error != null) {
+                logger.warn("Item delta sync failed", unwrap(error));
+                return;
+            }
+            lowStock.itemsChanged(changes);
+            itemSync.merge(itemStore, changes);
+            if (!changes.isEmpty()) {
+                updateStatus("Synchronized " + changes.size() + " changed items from Supabase");
+            }
+        }, FX_THREAD);
+    }
+    
     @FXML
     private void showAddItemDialog() {
         showItemDialog(null);
@@ -243,35 +989,36 @@ public class MainController {
         
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            try {
-                supabaseService.deleteItem(selectedItem.getId());
-                loadItems();
+            supabaseService.deleteItemAsync(selectedItem.getId()).whenCompleteAsync((_, error) -> {
+                if (error != null) {
+                    Throwable cause = unwrap(error);
+                    logger.error("Error deleting item", cause);
+                    showError("Error", "Failed to delete item: " + cause.getMessage());
+                    return;
+                }
+                syncItems();
                 updateStatus("Item deleted successfully");
-            } catch (Exception e) {
-                logger.error("Error deleting item", e);
-                showError("Error", "Failed to delete item: " + e.getMessage());
-            }
+            }, FX_THREAD);
         }
     }
     
     private void showItemDialog(Item item) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/ItemDialog.fxml"));
-            VBox dialogPane = loader.load();
-            
-            ItemDialogController controller = loader.getController();
-            controller.setItem(item);
-            
-            Stage dialog = new Stage();
-            dialog.setTitle(item == null ? "Add New Item" : "Edit Item");
-            dialog.initModality(Modality.APPLICATION_MODAL);
-            dialog.initOwner(itemsTable.getScene().getWindow());
-            dialog.setScene(new Scene(dialogPane));
+            preloadItemDialog();
+            if (itemDialog == null) {
+                showError("Error", "Failed to show item dialog, see the log for details.");
+                return;
+            }
+            if (itemDialog.getOwner() == null) {
+                itemDialog.initOwner(itemsTable.getScene().getWindow());
+            }
+            itemDialogController.setItem(item);
+            itemDialog.setTitle(item == null ? "Add New Item" : "Edit Item");
             
-            dialog.showAndWait();
+            itemDialog.showAndWait();
             
-            // Refresh items list
-            loadItems();
+            // Pick up the saved item (and anyone else's edits) without a full reload
+            syncItems();
             
         } catch (Exception e) {
             logger.error("Error showing item dialog", e);
@@ -279,59 +1026,125 @@ public class MainController {
         }
     }
     
+    private void preloadItemDialog() {
+        if (itemDialog != null) {
+            return;
+        }
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/ItemDialog.fxml"));
+            VBox dialogPane = loader.load();
+            itemDialogController = loader.getController();
+            itemDialog = new Stage();
+            itemDialog.initModality(Modality.APPLICATION_MODAL);
+            itemDialog.setScene(new Scene(dialogPane));
+        } catch (IOException e) {
+            // Not fatal here; showItemDialog tries again and reports it
+            logger.warn("Could not preload item dialog", e);
+        }
+    }
+    
+    // Validates the line fields of the Receive form; shows a warning and returns null if invalid
+    private CartLine buildReceiveLine() {
+        if (receiveItemComboBox.getValue() == null) {
+            showWarning("Validation Error", "Please select an item.");
+            return null;
+        }
+        
+        String qtyText = receiveQtyField.getText();
+        if (qtyText.isEmpty() || !qtyText.matches("\\d+")) {
+            showWarning("Validation Error", "Please enter a valid quantity.");
+            return null;
+        }
+        
+        int qty = Integer.parseInt(qtyText);
+        if (qty <= 0) {
+            showWarning("Validation Error", "Quantity must be greater than 0.");
+            return null;
+        }
+        
+        Item selectedItem = receiveItemComboBox.getValue();
+        TransactionLine line = new TransactionLine(selectedItem.getId(), qty);
+        
+        String priceText = receivePriceField.getText();
+        if (!priceText.isEmpty()) {
+            try {
+                line.setUnitPrice(new BigDecimal(priceText));
+            } catch (NumberFormatException e) {
+                showWarning("Validation Error", "Invalid unit price format.");
+                return null;
+            }
+        }
+        
+        line.setLocationId(locationId(receiveLocationComboBox));
+        return new CartLine(selectedItem, line);
+    }
+    
+    @FXML
+    private void addReceiveLine() {
+        CartLine cartLine = buildReceiveLine();
+        if (cartLine != null) {
+            receiveCart.add(cartLine);
+            clearReceiveLineFields();
+        }
+    }
+    
+    @FXML
+    private void removeReceiveLine() {
+        CartLine selected = receiveLinesTable.getSelectionModel().getSelectedItem();
+        if (selected != null) {
+            receiveCart.remove(selected);
+        }
+    }
+    
     @FXML
     private void receiveItems() {
         try {
-            // Validation
-            if (receiveItemComboBox.getValue() == null) {
-                showWarning("Validation Error", "Please select an item.");
-                return;
-            }
-            
-            String qtyText = receiveQtyField.getText();
-            if (qtyText.isEmpty() || !qtyText.matches("\\d+")) {
-                showWarning("Validation Error", "Please enter a valid quantity.");
-                return;
-            }
-            
-            int qty = Integer.parseInt(qtyText);
-            if (qty <= 0) {
-                showWarning("Validation Error", "Quantity must be greater than 0.");
-                return;
+            // Receive the whole cart; a line still filled in on the form joins it instead of being dropped
+            if (receiveCart.isEmpty() || hasReceiveLineInput()) {
+                CartLine cartLine = buildReceiveLine();
+                if (cartLine == null) {
+                    return;
+                }
+                receiveCart.add(cartLine);
+                clearReceiveLineFields();
             }
+            List<CartLine> cartLines = new ArrayList<>(receiveCart);
             
             // Create transaction
             Transaction transaction = new Transaction(Transaction.TransactionType.IN, 
-                                                   receiveReferenceField.getText(), UUID.randomUUID()); // Default user ID
+                                                   receiveReferenceField.getText(), null); // No user login yet
             transaction.setTxDate(receiveDatePicker.getValue());
             transaction.setNotes(receiveNotesArea.getText());
+            for (CartLine cartLine : cartLines) {
+                transaction.addLine(cartLine.line());
+            }
             
-            // Create transaction line
-            Item selectedItem = receiveItemComboBox.getValue();
-            TransactionLine line = new TransactionLine(selectedItem.getId(), qty);
-            
-            String priceText = receivePriceField.getText();
-            if (!priceText.isEmpty()) {
-                try {
-                    line.setUnitPrice(new BigDecimal(priceText));
-                } catch (NumberFormatException e) {
-                    showWarning("Validation Error", "Invalid unit price format.");
+            // Save header and all lines in one request without blocking the FX thread
+            updateStatus("Saving receipt...");
+            supabaseService.createTransactionAsync(transaction).whenCompleteAsync((_, error) -> {
+                if (error != null) {
+                    Throwable cause = unwrap(error);
+                    logger.error("Error receiving items", cause);
+                    showError("Error", "Failed to receive items: " + cause.getMessage());
                     return;
                 }
-            }
-            
-            line.setLocationId(UUID.randomUUID()); // Default location ID
-            transaction.addLine(line);
-            
-            // Save transaction via Supabase
-            supabaseService.createTransaction(transaction);
-            
-            // Clear form
-            clearReceiveForm();
-            loadItems();
-            
-            updateStatus("Items received successfully via Supabase");
-            showInfo("Success", "Items received successfully!");
+                // Clear form
+                clearReceiveForm();
+                syncItems();
+                stockSnapshot.refreshSoon();
+                valuation.refreshSoon();
+                
+                if (transactionJournal != null) {
+                    // Only appended to the local journal; it reaches Supabase in the background
+                    int pending = transactionJournal.getPendingCount();
+                    updateStatus(cartLines.size() + " line(s) received - saved locally, "
+                        + pending + " transaction(s) waiting to sync with Supabase");
+                    showInfo("Success", "Items received and saved locally. They will be synchronized with Supabase in the background.");
+                } else {
+                    updateStatus(cartLines.size() + " line(s) received successfully via Supabase");
+                    showInfo("Success", "Items received successfully!");
+                }
+            }, FX_THREAD);
             
         } catch (Exception e) {
             logger.error("Error receiving items", e);
@@ -339,64 +1152,115 @@ public class MainController {
         }
     }
     
+    // Validates the line fields of the Issue form; shows a warning and returns null if invalid
+    private CartLine buildIssueLine() {
+        if (issueItemComboBox.getValue() == null) {
+            showWarning("Validation Error", "Please select an item.");
+            return null;
+        }
+        
+        String qtyText = issueQtyField.getText();
+        if (qtyText.isEmpty() || !qtyText.matches("\\d+")) {
+            showWarning("Validation Error", "Please enter a valid quantity.");
+            return null;
+        }
+        
+        int qty = Integer.parseInt(qtyText);
+        if (qty <= 0) {
+            showWarning("Validation Error", "Quantity must be greater than 0.");
+            return null;
+        }
+        
+        Item selectedItem = issueItemComboBox.getValue();
+        TransactionLine line = new TransactionLine(selectedItem.getId(), qty);
+        line.setLocationId(locationId(issueLocationComboBox));
+        line.setConditionStatus(TransactionLine.ConditionStatus.valueOf(
+            issueConditionComboBox.getValue()));
+        return new CartLine(selectedItem, line);
+    }
+    
+    @FXML
+    private void addIssueLine() {
+        CartLine cartLine = buildIssueLine();
+        if (cartLine != null) {
+            issueCart.add(cartLine);
+            clearIssueLineFields();
+        }
+    }
+    
+    @FXML
+    private void removeIssueLine() {
+        CartLine selected = issueLinesTable.getSelectionModel().getSelectedItem();
+        if (selected != null) {
+            issueCart.remove(selected);
+        }
+    }
+    
     @FXML
     private void issueItems() {
         try {
-            // Validation
-            if (issueItemComboBox.getValue() == null) {
-                showWarning("Validation Error", "Please select an item.");
-                return;
-            }
-            
-            String qtyText = issueQtyField.getText();
-            if (qtyText.isEmpty() || !qtyText.matches("\\d+")) {
-                showWarning("Validation Error", "Please enter a valid quantity.");
-                return;
-            }
-            
-            int qty = Integer.parseInt(qtyText);
-            if (qty <= 0) {
-                showWarning("Validation Error", "Quantity must be greater than 0.");
-                return;
-            }
-            
-            // Check stock availability
-            Item selectedItem = issueItemComboBox.getValue();
-            int currentStock = supabaseService.getCurrentStock(selectedItem.getId());
-            if (currentStock < qty && !ConfigManager.isAllowNegativeStock()) {
-                showWarning("Insufficient Stock", 
-                           "Current stock: " + currentStock + ", Requested: " + qty);
-                return;
+            // Issue the whole cart; a line still filled in on the form joins it instead of being dropped
+            if (issueCart.isEmpty() || hasIssueLineInput()) {
+                CartLine cartLine = buildIssueLine();
+                if (cartLine == null) {
+                    return;
+                }
+                issueCart.add(cartLine);
+                clearIssueLineFields();
             }
+            List<CartLine> cartLines = new ArrayList<>(issueCart);
             
-            // Determine transaction type based on condition
-            Transaction.TransactionType txType = Transaction.TransactionType.OUT;
-            if ("NOT_USABLE".equals(issueConditionComboBox.getValue()) && 
-                ConfigManager.isCountNonUsableAsOutgoing()) {
-                txType = Transaction.TransactionType.DISPOSITION;
+            // Determine transaction type based on condition: non-usable lines may go out as a disposition
+            Map<Transaction.TransactionType, Transaction> transactions = new EnumMap<>(Transaction.TransactionType.class);
+            for (CartLine cartLine : cartLines) {
+                Transaction.TransactionType txType = Transaction.TransactionType.OUT;
+                if (cartLine.line().isNotUsable() && ConfigManager.isCountNonUsableAsOutgoing()) {
+                    txType = Transaction.TransactionType.DISPOSITION;
+                }
+                transactions.computeIfAbsent(txType, type -> {
+                    Transaction transaction = new Transaction(type, issueReferenceField.getText(), null); // No user login yet
+                    transaction.setTxDate(issueDatePicker.getValue());
+                    transaction.setNotes(issueNotesArea.getText());
+                    return transaction;
+                }).addLine(cartLine.line());
             }
             
-            // Create transaction
-            Transaction transaction = new Transaction(txType, issueReferenceField.getText(), UUID.randomUUID());
-            transaction.setTxDate(issueDatePicker.getValue());
-            transaction.setNotes(issueNotesArea.getText());
-            
-            // Create transaction line
-            TransactionLine line = new TransactionLine(selectedItem.getId(), qty);
-            line.setLocationId(UUID.randomUUID()); // Default location ID
-            line.setConditionStatus(TransactionLine.ConditionStatus.valueOf(
-                issueConditionComboBox.getValue()));
-            transaction.addLine(line);
-            
-            // Save transaction via Supabase
-            supabaseService.createTransaction(transaction);
-            
-            // Clear form
-            clearIssueForm();
-            loadItems();
-            
-            updateStatus("Items issued successfully via Supabase");
-            showInfo("Success", "Items issued successfully!");
+            // The server checks and decrements stock and stores every transaction of the cart in one
+            // database transaction: the whole cart is issued, or nothing when any item is short
+            updateStatus("Saving issue...");
+            boolean allowNegative = ConfigManager.isAllowNegativeStock();
+            supabaseService.issueTransactionsAsync(transactions.values(), allowNegative).whenCompleteAsync((result, error) -> {
+                if (error != null) {
+                    Throwable cause = unwrap(error);
+                    logger.error("Error issuing items", cause);
+                    showError("Error", "Failed to issue items: " + cause.getMessage());
+                    return;
+                }
+                valuation.refreshSoon();
+                if (!result.isIssued()) {
+                    String itemCode = cartLines.stream()
+                        .filter(cartLine -> cartLine.item().getId().equals(result.getShortItemId()))
+                        .map(cartLine -> cartLine.item().getItemCode())
+                        .findFirst()
+                        .orElse(String.valueOf(result.getShortItemId()));
+                    String location = locations.stream()
+                        .filter(candidate -> candidate.getId().equals(result.getShortLocationId()))
+                        .map(candidate -> " at " + candidate.getName())
+                        .findFirst()
+                        .orElse("");
+                    showWarning("Insufficient Stock", itemCode + location
+                        + " - Current stock: " + result.getAvailable() + ", Requested: " + result.getRequested());
+                    updateStatus("Issue cancelled - insufficient stock");
+                    return;
+                }
+                stockSnapshot.update(result.getBalances());
+                // Clear form
+                clearIssueForm();
+                syncItems();
+                
+                updateStatus(cartLines.size() + " line(s) issued successfully via Supabase");
+                showInfo("Success", "Items issued successfully!");
+            }, FX_THREAD);
             
         } catch (Exception e) {
             logger.error("Error issuing items", e);
@@ -420,10 +1284,36 @@ public class MainController {
                 return;
             }
             
-            List<SupabaseService.TransactionReportRow> reportRows = supabaseService.getTransactionReport(startDate, endDate);
-            
-            reportTable.setItems(FXCollections.observableArrayList(reportRows));
-            updateStatus("Report generated from Supabase: " + reportRows.size() + " transactions");
+            // Stream the report into the table page by page; a new request supersedes the running one
+            cancelReport();
+            AtomicBoolean cancelled = new AtomicBoolean();
+            reportCancellation = cancelled;
+            String mode = reportModeComboBox.getValue();
+            if (REPORT_DAILY_SUMMARY.equals(mode) || REPORT_WEEKLY_SUMMARY.equals(mode)) {
+                generateSummary(REPORT_DAILY_SUMMARY.equals(mode)
+                    ? SupabaseService.SummaryPeriod.DAILY : SupabaseService.SummaryPeriod.WEEKLY,
+                    startDate, endDate, cancelled);
+                return;
+            }
+            reportRows.clear();
+            updateStatus("Generating report...");
+            supabaseService.streamTransactionReportAsync(startDate, endDate, cancelled, page -> Platform.runLater(() -> {
+                if (!cancelled.get()) {
+                    reportRows.addAll(page);
+                    updateStatus("Generating report... " + reportRows.size() + " rows");
+                }
+            })).whenCompleteAsync((total, error) -> {
+                if (cancelled.get()) {
+                    return;
+                }
+                if (error != null) {
+                    Throwable cause = unwrap(error);
+                    logger.error("Error generating report", cause);
+                    showError("Error", "Failed to generate report from Supabase: " + cause.getMessage());
+                    return;
+                }
+                updateStatus("Report generated from Supabase: " + total + " transactions");
+            }, FX_THREAD);
             
         } catch (Exception e) {
             logger.error("Error generating report", e);
@@ -431,22 +1321,179 @@ public class MainController {
         }
     }
     
+    private void generateSummary(SupabaseService.SummaryPeriod period, LocalDate startDate, LocalDate endDate,
+                                 AtomicBoolean cancelled) {
+        summaryRows.clear();
+        updateStatus("Generating summary...");
+        supabaseService.streamMovementSummaryAsync(period, startDate, endDate, cancelled, page -> Platform.runLater(() -> {
+            if (!cancelled.get()) {
+                summaryRows.addAll(page);
+                updateStatus("Generating summary... " + summaryRows.size() + " rows");
+            }
+        })).whenCompleteAsync((total, error) -> {
+            if (cancelled.get()) {
+                return;
+            }
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                logger.error("Error generating summary", cause);
+                showError("Error", "Failed to generate summary from Supabase: " + cause.getMessage());
+                return;
+            }
+            updateStatus("Summary generated from Supabase: " + total + " item periods");
+        }, FX_THREAD);
+    }
+    
+    private void cancelReport() {
+        if (reportCancellation != null && reportCancellation.compareAndSet(false, true)) {
+            updateStatus("Report cancelled");
+        }
+    }
+    
     @FXML
     private void exportToCSV() {
-        // Implementation for CSV export
-        showInfo("Info", "CSV export functionality will be implemented.");
+        LocalDate startDate = reportStartDate.getValue();
+        LocalDate endDate = reportEndDate.getValue();
+        if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
+            showWarning("Validation Error", "Please select a valid date range to export.");
+            return;
+        }
+        File file = chooseExportFile("transaction_report_" + startDate + "_" + endDate + ".csv");
+        if (file == null) {
+            return;
+        }
+        runExport(file.toPath(), (cancelled, progress) -> {
+            long total = supabaseService.countTransactionReport(startDate, endDate);
+            return csvExporter.exportTransactionReport(startDate, endDate, file.toPath(), cancelled,
+                rows -> progress.update(rows, total));
+        });
+    }
+    
+    @FXML
+    private void exportStockToCSV() {
+        File file = chooseExportFile("stock_" + LocalDate.now() + ".csv");
+        if (file == null) {
+            return;
+        }
+        // The item lists belong to the FX thread, so the total is read here rather than in the task
+        long total = pickerItems != null ? pickerItems.size() : itemsList.size();
+        runExport(file.toPath(), (cancelled, progress) ->
+            csvExporter.exportStock(file.toPath(), cancelled, rows -> progress.update(rows, total)));
+    }
+    
+    @FXML
+    private void cancelExport() {
+        if (exportTask != null) {
+            exportTask.cancel();
+        }
+    }
+    
+    private File chooseExportFile(String suggestedName) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export CSV");
+        chooser.setInitialFileName(suggestedName);
+        chooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("CSV (*.csv)", "*.csv"),
+            new FileChooser.ExtensionFilter("Gzipped CSV (*.csv.gz)", "*.csv.gz"));
+        return chooser.showSaveDialog(statusLabel.getScene().getWindow());
+    }
+    
+    private interface ExportProgress {
+        void update(long rowsWritten, long totalRows);
+    }
+    
+    private interface ExportJob {
+        long run(AtomicBoolean cancelled, ExportProgress progress) throws Exception;
+    }
+    
+    // Runs one export at a time on a background thread, reporting into the Reports tab progress bar
+    private void runExport(Path file, ExportJob job) {
+        if (exportTask != null && exportTask.isRunning()) {
+            showWarning("Export Running", "Please wait for the current export to finish or cancel it.");
+            return;
+        }
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Task<Long> task = new Task<>() {
+            @Override
+            protected Long call() throws Exception {
+                return job.run(cancelled, (rowsWritten, totalRows) -> {
+                    updateProgress(rowsWritten, totalRows > 0 ? Math.max(totalRows, rowsWritten) : -1);
+                    updateMessage("Exporting... " + rowsWritten + " rows");
+                });
+            }
+            
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                // Stop between pages rather than interrupting a request mid-flight
+                cancelled.set(true);
+                return super.cancel(false);
+            }
+        };
+        task.messageProperty().addListener((_, __, message) -> statusLabel.setText(message));
+        task.setOnSucceeded(_ -> {
+            finishExport();
+            updateStatus("Exported " + task.getValue() + " rows to " + file);
+        });
+        task.setOnCancelled(_ -> {
+            finishExport();
+            updateStatus("Export cancelled");
+        });
+        task.setOnFailed(_ -> {
+            finishExport();
+            logger.error("Error exporting CSV", task.getException());
+            showError("Error", "Failed to export CSV: " + task.getException().getMessage());
+        });
+        
+        exportTask = task;
+        exportProgressBar.progressProperty().bind(task.progressProperty());
+        exportProgressBar.setVisible(true);
+        cancelExportButton.setVisible(true);
+        
+        Thread thread = new Thread(task, "csv-export");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    private void finishExport() {
+        exportProgressBar.progressProperty().unbind();
+        exportProgressBar.setVisible(false);
+        cancelExportButton.setVisible(false);
     }
     
     @FXML
     private void saveSettings() {
         try {
-            ConfigManager.setProperty("count_non_usable_as_outgoing", countNonUsableCheckBox.isSelected());
-            ConfigManager.setProperty("allow_negative_stock", allowNegativeStockCheckBox.isSelected());
-            ConfigManager.setProperty("supabase.url", supabaseUrlField.getText());
-            ConfigManager.setProperty("supabase.api_key", supabaseApiKeyField.getText());
+            DayOfWeek previousWeekStart = ConfigManager.getWeekStartDay();
+            DayOfWeek weekStart = weekStartDayComboBox.getValue();
+            boolean weekStartChanged = weekStart != null && weekStart != previousWeekStart;
             
-            updateStatus("Settings saved successfully");
-            showInfo("Success", "Settings saved successfully!");
+            ConfigManager.batch()
+                .set("count_non_usable_as_outgoing", countNonUsableCheckBox.isSelected())
+                .set("allow_negative_stock", allowNegativeStockCheckBox.isSelected())
+                .set("supabase.url", supabaseUrlField.getText())
+                .set("supabase.api_key", supabaseApiKeyField.getText())
+                .commit();
+            if (!weekStartChanged) {
+                settingsSaved();
+                return;
+            }
+            
+            // The weekly rollup lives in the database, so the new week start is kept only once Supabase has applied it
+            updateStatus("Saving settings - rebuilding weekly summaries...");
+            supabaseService.setWeekStartDayAsync(weekStart).whenCompleteAsync((_, error) -> {
+                if (error != null) {
+                    Throwable cause = unwrap(error);
+                    logger.error("Error updating week start day", cause);
+                    weekStartDayComboBox.setValue(previousWeekStart);
+                    showSettings();
+                    updateStatus("Settings saved, week start day unchanged");
+                    showError("Error", "The other settings were saved, but the week start day could not be changed in Supabase: "
+                        + cause.getMessage());
+                    return;
+                }
+                ConfigManager.setProperty("week_start_day", weekStart.getValue());
+                settingsSaved();
+            }, FX_THREAD);
             
         } catch (Exception e) {
             logger.error("Error saving settings", e);
@@ -456,32 +1503,62 @@ public class MainController {
     
     @FXML
     private void testSupabaseConnection() {
-        try {
-            // Test connection by trying to fetch items
-            List<Item> items = supabaseService.getAllItems();
-            showInfo("Connection Test", "Successfully connected to Supabase! Found " + items.size() + " items.");
+        // Test connection by counting items; only the count header comes back
+        supabaseService.countActiveItemsAsync().whenCompleteAsync((count, error) -> {
+            if (error != null) {
+                showError("Connection Test Failed", "Could not connect to Supabase: " + unwrap(error).getMessage());
+                updateStatus("Supabase connection test failed");
+                return;
+            }
+            showInfo("Connection Test", "Successfully connected to Supabase! Found " + count + " items.");
             updateStatus("Supabase connection test successful");
-        } catch (Exception e) {
-            showError("Connection Test Failed", "Could not connect to Supabase: " + e.getMessage());
-            updateStatus("Supabase connection test failed");
-        }
+        }, FX_THREAD);
     }
     
     private void clearReceiveForm() {
         receiveReferenceField.clear();
+        receiveNotesArea.clear();
+        receiveCart.clear();
+        clearReceiveLineFields();
+    }
+    
+    private void clearReceiveLineFields() {
         receiveQtyField.clear();
         receivePriceField.clear();
-        receiveNotesArea.clear();
         receiveItemComboBox.setValue(null);
     }
     
+    private boolean hasReceiveLineInput() {
+        return receiveItemComboBox.getValue() != null || !receiveQtyField.getText().isBlank()
+            || !receivePriceField.getText().isBlank();
+    }
+    
+    private boolean hasIssueLineInput() {
+        return issueItemComboBox.getValue() != null || !issueQtyField.getText().isBlank();
+    }
+    
     private void clearIssueForm() {
         issueReferenceField.clear();
-        issueQtyField.clear();
         issueNotesArea.clear();
+        issueCart.clear();
+        clearIssueLineFields();
+    }
+    
+    private void clearIssueLineFields() {
+        issueQtyField.clear();
         issueItemComboBox.setValue(null);
     }
     
+    private static UUID locationId(ComboBox<Location> comboBox) {
+        Location location = comboBox.getValue();
+        // Null is booked to the server's default location
+        return location == null ? null : location.getId();
+    }
+    
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+    
     private void updateStatus(String message) {
         statusLabel.setText(message);
         logger.info("Status: {}", message);
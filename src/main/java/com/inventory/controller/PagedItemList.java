@@ -0,0 +1,182 @@
+package com.inventory.controller;
+
+import com.inventory.model.Item;
+import com.inventory.service.SupabaseService;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import javafx.collections.ObservableListBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read-only list of a server-side item catalogue that is far too large to hold in memory.
+ * <p>
+ * The size comes from the server's exact count; rows are fetched a page at a time the first
+ * time a virtualized control (TableView, ComboBox) asks for them. Until its page arrives a row
+ * reads as {@code null}; the arrival is announced as a replacement of those rows so the control
+ * redraws them. Only the most recently used pages are kept, and every page access also queues
+ * the neighbouring page in the direction the user is scrolling. Must be used on one thread
+ * (the FX thread); loads complete through {@code callbackExecutor}.
+ */
+class PagedItemList extends ObservableListBase<Item> {
+    private static final Logger logger = LoggerFactory.getLogger(PagedItemList.class);
+
+    /**
+     * Fetches {@code limit} items from {@code offset} matching {@code query} (null for all). Only the
+     * total of the window at offset 0 is read, so other windows may skip counting.
+     */
+    interface PageLoader {
+        CompletableFuture<SupabaseService.ItemPage> load(String query, long offset, int limit);
+    }
+
+    private final PageLoader loader;
+    private final Executor callbackExecutor;
+    private final int pageSize;
+    private final int maxPages;
+    private final Map<Integer, List<Item>> pages;
+    private final Set<Integer> loading = new HashSet<>();
+    private final Set<Integer> failed = new HashSet<>();
+    private volatile Consumer<Throwable> onError = _ -> { };
+    private String query;
+    private int size;
+    private int generation;
+    private int lastPage;
+    private int direction = 1;
+
+    PagedItemList(PageLoader loader, Executor callbackExecutor, int pageSize, int maxPages) {
+        this.loader = loader;
+        this.callbackExecutor = callbackExecutor;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        // Access-ordered, so the eldest entry is the least recently used page
+        this.pages = new LinkedHashMap<>(maxPages * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Item>> eldest) {
+                return size() > PagedItemList.this.maxPages;
+            }
+        };
+    }
+
+    /**
+     * Called when a page cannot be loaded; the page is retried after the next {@link #reload}.
+     */
+    void setOnError(Consumer<Throwable> onError) {
+        this.onError = onError == null ? _ -> { } : onError;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Item get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int page = index / pageSize;
+        if (page != lastPage) {
+            direction = page > lastPage ? 1 : -1;
+            lastPage = page;
+        }
+        List<Item> rows = pages.get(page);
+        request(page);
+        request(page + direction);
+        int offset = index - page * pageSize;
+        return rows == null || offset >= rows.size() ? null : rows.get(offset);
+    }
+
+    /**
+     * Drops every cached page and starts over with {@code query} (null or blank for all items),
+     * first fetching the count and the opening page.
+     *
+     * @return completes on the callback executor once the new size is known
+     */
+    CompletableFuture<Integer> reload(String query) {
+        this.query = query == null || query.isBlank() ? null : query;
+        int reloadGeneration = ++generation;
+        pages.clear();
+        loading.clear();
+        failed.clear();
+        lastPage = 0;
+        direction = 1;
+        loading.add(0);
+        return loader.load(this.query, 0, pageSize).handleAsync((result, error) -> {
+            if (reloadGeneration != generation) {
+                return size;
+            }
+            loading.remove(0);
+            if (error != null) {
+                failed.add(0);
+                throw new IllegalStateException("Failed to load items", error);
+            }
+            pages.put(0, result.items());
+            resize((int) Math.min(result.total(), Integer.MAX_VALUE - 1));
+            return size;
+        }, callbackExecutor);
+    }
+
+    /**
+     * Re-reads the current query after the catalogue changed on the server.
+     */
+    CompletableFuture<Integer> reload() {
+        return reload(query);
+    }
+
+    /**
+     * @return the number of pages currently held in memory
+     */
+    int getCachedPageCount() {
+        return pages.size();
+    }
+
+    private void request(int page) {
+        if (page < 0 || (long) page * pageSize >= size || pages.containsKey(page)
+                || loading.contains(page) || failed.contains(page)) {
+            return;
+        }
+        loading.add(page);
+        int requestGeneration = generation;
+        loader.load(query, (long) page * pageSize, pageSize).whenCompleteAsync((result, error) -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            loading.remove(page);
+            if (error != null) {
+                failed.add(page);
+                logger.warn("Failed to load item page {}", page, error);
+                onError.accept(error);
+                return;
+            }
+            pages.put(page, result.items());
+            int from = page * pageSize;
+            int to = Math.min(from + pageSize, size);
+            if (from < to) {
+                // The rows read as null until now; replacing them makes the control fetch them again
+                beginChange();
+                nextReplace(from, to, Collections.nCopies(to - from, null));
+                endChange();
+            }
+        }, callbackExecutor);
+    }
+
+    private void resize(int newSize) {
+        int oldSize = size;
+        size = newSize;
+        beginChange();
+        if (oldSize > 0) {
+            nextRemove(0, Collections.nCopies(oldSize, null));
+        }
+        if (newSize > 0) {
+            nextAdd(0, newSize);
+        }
+        endChange();
+    }
+}
@@ -13,6 +13,7 @@ public class Item {
     private boolean isPalindrome;
     private boolean isActive;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
     
     // Constructors
     public Item() {}
@@ -56,6 +57,23 @@ public class Item {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
+    // Copies every field of another version of the same item into this instance
+    public void copyFrom(Item other) {
+        this.id = other.id;
+        this.itemCode = other.itemCode;
+        this.name = other.name;
+        this.category = other.category;
+        this.unit = other.unit;
+        this.minStock = other.minStock;
+        this.isPalindrome = other.isPalindrome;
+        this.isActive = other.isActive;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+    }
+    
     @Override
     public String toString() {
         return itemCode + " - " + name;
@@ -0,0 +1,28 @@
+package com.inventory.model;
+
+import java.util.UUID;
+
+public class Location {
+    private UUID id;
+    private String name;
+    
+    // Constructors
+    public Location() {}
+    
+    public Location(UUID id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+    
+    // Getters and Setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,35 @@
+package com.inventory.service;
+
+import com.inventory.model.Item;
+import java.util.UUID;
+
+/**
+ * Source of row changes made by other clients, pushed as they happen instead of polled.
+ * Listener callbacks arrive on the feed's own thread.
+ */
+public interface ChangeFeed extends AutoCloseable {
+
+    interface Listener {
+        /**
+         * An items row was inserted or updated; a deactivated or deleted item arrives with isActive() false.
+         */
+        void itemChanged(Item item);
+
+        void stockChanged(UUID itemId, int quantity);
+
+        /**
+         * A per-location balance of the item changed; its new total has to be read back.
+         */
+        void stockMoved(UUID itemId);
+
+        /**
+         * Changes may have been missed (e.g. after a reconnect); the receiver should catch up by pulling.
+         */
+        void resynchronize();
+    }
+
+    void start(Listener listener);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,81 @@
+package com.inventory.service;
+
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stops sending requests after a run of consecutive failures. While open, calls fail immediately;
+ * after {@code openDuration} one trial request is let through, and its outcome closes the breaker
+ * again or re-opens it for another period.
+ */
+public class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * @return true if this call is the half-open trial; its caller must then record an outcome or
+     *         {@link #releaseTrial()}
+     * @throws SupabaseUnavailableException if the breaker is open, or half-open with its trial request already out
+     */
+    public synchronized boolean acquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.OPEN || (state == State.HALF_OPEN && trialInFlight)) {
+            throw new SupabaseUnavailableException("Supabase is unreachable, not sending request (circuit open)");
+        }
+        if (state == State.HALF_OPEN) {
+            trialInFlight = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gives back a trial whose request ended without telling whether Supabase is up, e.g. because
+     * the calling thread was interrupted.
+     */
+    public synchronized void releaseTrial() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("Supabase reachable again, circuit closed");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            logger.warn("Supabase failing ({} consecutive failures), circuit opened", consecutiveFailures);
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
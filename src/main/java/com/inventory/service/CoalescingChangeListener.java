@@ -0,0 +1,78 @@
+package com.inventory.service;
+
+import com.inventory.model.Item;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Buffers change-feed events and hands them to a consumer in batches on the given executor
+ * (the FX thread for the UI). Only the latest state per row is kept, and at most one drain is
+ * queued at a time, so a burst of changes costs one hop to the consumer's thread.
+ */
+public class CoalescingChangeListener implements ChangeFeed.Listener {
+
+    public record Batch(List<Item> items, Map<UUID, Integer> stock, Set<UUID> stockMoved, boolean resynchronize) { }
+
+    private final Executor executor;
+    private final Consumer<Batch> consumer;
+    private Map<UUID, Item> items = new LinkedHashMap<>();
+    private Map<UUID, Integer> stock = new LinkedHashMap<>();
+    private Set<UUID> stockMoved = new LinkedHashSet<>();
+    private boolean resynchronize;
+    private boolean drainQueued;
+
+    public CoalescingChangeListener(Executor executor, Consumer<Batch> consumer) {
+        this.executor = executor;
+        this.consumer = consumer;
+    }
+
+    @Override
+    public synchronized void itemChanged(Item item) {
+        items.put(item.getId(), item);
+        queueDrain();
+    }
+
+    @Override
+    public synchronized void stockChanged(UUID itemId, int quantity) {
+        stock.put(itemId, quantity);
+        queueDrain();
+    }
+
+    @Override
+    public synchronized void stockMoved(UUID itemId) {
+        stockMoved.add(itemId);
+        queueDrain();
+    }
+
+    @Override
+    public synchronized void resynchronize() {
+        resynchronize = true;
+        queueDrain();
+    }
+
+    private void queueDrain() {
+        if (!drainQueued) {
+            drainQueued = true;
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        Batch batch;
+        synchronized (this) {
+            batch = new Batch(List.copyOf(items.values()), stock, stockMoved, resynchronize);
+            items = new LinkedHashMap<>();
+            stock = new LinkedHashMap<>();
+            stockMoved = new LinkedHashSet<>();
+            resynchronize = false;
+            drainQueued = false;
+        }
+        consumer.accept(batch);
+    }
+}
@@ -0,0 +1,224 @@
+package com.inventory.service;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Transparent decoding of gzip/deflate response bodies for the JDK HttpClient, which does not
+ * do it itself. The body is inflated chunk by chunk as it arrives, so any body handler (string,
+ * stream, ...) sees plain bytes and nothing is buffered in full.
+ */
+final class ContentDecoding {
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private ContentDecoding() {
+    }
+
+    /**
+     * @param request the request the response answers; a HEAD response never has a body to inflate
+     */
+    static <T> HttpResponse.BodyHandler<T> decoding(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        boolean head = "HEAD".equalsIgnoreCase(request.method());
+        return responseInfo -> {
+            HttpResponse.BodySubscriber<T> delegate = handler.apply(responseInfo);
+            // Content-Encoding may still be set on a response without a body, which would otherwise
+            // fail as a compressed stream that ended early
+            if (head || !hasBody(responseInfo)) {
+                return delegate;
+            }
+            String encoding = responseInfo.headers().firstValue("Content-Encoding").orElse("identity")
+                .trim().toLowerCase(Locale.ROOT);
+            return switch (encoding) {
+                case "gzip", "x-gzip" -> new InflatingSubscriber<>(delegate, true);
+                case "deflate" -> new InflatingSubscriber<>(delegate, false);
+                default -> delegate;
+            };
+        };
+    }
+
+    private static boolean hasBody(HttpResponse.ResponseInfo responseInfo) {
+        int status = responseInfo.statusCode();
+        if (status < 200 || status == 204 || status == 304) {
+            return false;
+        }
+        return responseInfo.headers().firstValueAsLong("Content-Length").orElse(-1) != 0;
+    }
+
+    private static final class InflatingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+        private static final int CHUNK_SIZE = 16 * 1024;
+        private static final int GZIP_TRAILER_SIZE = 8;
+
+        private final HttpResponse.BodySubscriber<T> delegate;
+        private final boolean gzip;
+        private final Inflater inflater;
+        private final CRC32 crc = new CRC32();
+        private Flow.Subscription subscription;
+        // gzip framing not yet consumed: the header before the deflate stream, the trailer after it
+        private byte[] pending = new byte[0];
+        private boolean headerDone;
+        private boolean trailerDone;
+
+        InflatingSubscriber(HttpResponse.BodySubscriber<T> delegate, boolean gzip) {
+            this.delegate = delegate;
+            this.gzip = gzip;
+            // "deflate" in HTTP means the zlib format; gzip wraps a raw deflate stream in its own header
+            this.inflater = new Inflater(gzip);
+            this.headerDone = !gzip;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            delegate.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            List<ByteBuffer> decoded = new ArrayList<>();
+            try {
+                for (ByteBuffer buffer : buffers) {
+                    decode(buffer, decoded);
+                }
+            } catch (IOException e) {
+                subscription.cancel();
+                onError(e);
+                return;
+            }
+            if (decoded.isEmpty()) {
+                // Nothing to pass on yet (e.g. only header bytes); keep the downstream demand alive
+                subscription.request(1);
+            } else {
+                delegate.onNext(decoded);
+            }
+        }
+
+        private void decode(ByteBuffer buffer, List<ByteBuffer> decoded) throws IOException {
+            if (!headerDone) {
+                pending = append(pending, buffer);
+                int headerLength = gzipHeaderLength(pending);
+                if (headerLength < 0) {
+                    return;
+                }
+                headerDone = true;
+                buffer = ByteBuffer.wrap(pending, headerLength, pending.length - headerLength);
+                pending = new byte[0];
+            }
+            if (inflater.finished()) {
+                collectTrailer(buffer);
+                return;
+            }
+            inflater.setInput(buffer);
+            try {
+                while (!inflater.finished() && !inflater.needsInput()) {
+                    ByteBuffer out = ByteBuffer.allocate(CHUNK_SIZE);
+                    int produced = inflater.inflate(out);
+                    if (produced == 0 && inflater.needsDictionary()) {
+                        throw new IOException("Compressed response needs a preset dictionary");
+                    }
+                    if (produced > 0) {
+                        out.flip();
+                        crc.update(out.duplicate());
+                        decoded.add(out);
+                    }
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt compressed response", e);
+            }
+            if (inflater.finished()) {
+                collectTrailer(buffer);
+            }
+        }
+
+        // The bytes after the deflate stream are the gzip trailer: CRC-32 and length of the plain data
+        private void collectTrailer(ByteBuffer rest) throws IOException {
+            if (!gzip || trailerDone) {
+                return;
+            }
+            pending = append(pending, rest);
+            if (pending.length < GZIP_TRAILER_SIZE) {
+                return;
+            }
+            ByteBuffer trailer = ByteBuffer.wrap(pending).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+            long expectedCrc = trailer.getInt() & 0xFFFFFFFFL;
+            long expectedSize = trailer.getInt() & 0xFFFFFFFFL;
+            if (expectedCrc != crc.getValue() || expectedSize != (inflater.getBytesWritten() & 0xFFFFFFFFL)) {
+                throw new IOException("Compressed response failed its integrity check");
+            }
+            trailerDone = true;
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            inflater.end();
+            delegate.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            boolean complete = inflater.finished() && (!gzip || trailerDone);
+            inflater.end();
+            if (complete) {
+                delegate.onComplete();
+            } else {
+                delegate.onError(new IOException("Compressed response ended early"));
+            }
+        }
+
+        private static byte[] append(byte[] head, ByteBuffer tail) {
+            byte[] joined = new byte[head.length + tail.remaining()];
+            System.arraycopy(head, 0, joined, 0, head.length);
+            tail.get(joined, head.length, tail.remaining());
+            return joined;
+        }
+
+        /**
+         * @return length of the gzip member header at the start of {@code data}, or -1 if more bytes are needed
+         */
+        private static int gzipHeaderLength(byte[] data) throws IOException {
+            if (data.length < 10) {
+                return -1;
+            }
+            if ((data[0] & 0xFF) != 0x1F || (data[1] & 0xFF) != 0x8B || data[2] != 8) {
+                throw new IOException("Response is not valid gzip");
+            }
+            int flags = data[3] & 0xFF;
+            int position = 10;
+            if ((flags & 0x04) != 0) { // FEXTRA
+                if (data.length < position + 2) {
+                    return -1;
+                }
+                position += 2 + ((data[position] & 0xFF) | (data[position + 1] & 0xFF) << 8);
+            }
+            for (int flag : new int[] {0x08, 0x10}) { // FNAME, FCOMMENT: zero-terminated
+                if ((flags & flag) != 0) {
+                    while (position < data.length && data[position] != 0) {
+                        position++;
+                    }
+                    if (position >= data.length) {
+                        return -1;
+                    }
+                    position++;
+                }
+            }
+            if ((flags & 0x02) != 0) { // FHCRC
+                position += 2;
+            }
+            return position <= data.length ? position : -1;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.inventory.service;
+
+import com.inventory.model.Item;
+import com.inventory.util.CsvWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes reports to CSV while they stream in from Supabase; only one page of rows is held
+ * at a time. Output ending in ".gz" is gzip-compressed. Rows go to a temporary file next to the
+ * target, which is renamed over it only once the export is complete, so a cancelled or failed
+ * export never leaves a truncated file behind.
+ */
+public class CsvExporter {
+    private static final Logger logger = LoggerFactory.getLogger(CsvExporter.class);
+
+    private final SupabaseService supabaseService;
+
+    public CsvExporter(SupabaseService supabaseService) {
+        this.supabaseService = supabaseService;
+    }
+
+    public static boolean isGzipPath(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".gz");
+    }
+
+    /**
+     * @param progress receives the number of rows written so far after each page
+     * @return rows written
+     */
+    public long exportTransactionReport(LocalDate startDate, LocalDate endDate, Path file,
+                                        AtomicBoolean cancelled, LongConsumer progress) throws IOException {
+        long[] written = {0};
+        return export(file, cancelled, csv -> {
+            csv.row("Date", "Reference", "Type", "Item Code", "Item", "Quantity", "Condition", "Unit Price", "Notes");
+            supabaseService.streamTransactionReport(startDate, endDate, SupabaseService.REPORT_PAGE_SIZE, cancelled, page -> {
+                try {
+                    for (SupabaseService.TransactionReportRow row : page) {
+                        csv.field(row.getTxDate())
+                            .field(row.getReference())
+                            .field(row.getTxType())
+                            .field(row.getItemCode())
+                            .field(row.getItemName())
+                            .field(row.getQty())
+                            .field(row.getConditionStatus())
+                            .field(row.getUnitPrice() == null ? null : row.getUnitPrice().toPlainString())
+                            .field(row.getNotes())
+                            .endRow();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                written[0] += page.size();
+                progress.accept(written[0]);
+            });
+            return written[0];
+        });
+    }
+
+    /**
+     * Exports every active item with its current stock_balance quantity. Items and balances are
+     * both ordered by item id, so each page of items fetches just the balances in its own id range.
+     */
+    public long exportStock(Path file, AtomicBoolean cancelled, LongConsumer progress) throws IOException {
+        long[] written = {0};
+        UUID[] pageStart = {null};
+        return export(file, cancelled, csv -> {
+            csv.row("Item Code", "Name", "Category", "Unit", "Min Stock", "Current Stock");
+            supabaseService.streamItems(SupabaseService.ITEM_PAGE_SIZE, SupabaseService.ItemProjection.TABLE, page -> {
+                if (cancelled.get()) {
+                    throw new CancellationException();
+                }
+                UUID pageEnd = page.get(page.size() - 1).getId();
+                Map<UUID, Integer> balances = new HashMap<>();
+                supabaseService.streamStockBalances(SupabaseService.ITEM_PAGE_SIZE, pageStart[0], pageEnd, balances::putAll);
+                pageStart[0] = pageEnd;
+                try {
+                    for (Item item : page) {
+                        csv.field(item.getItemCode())
+                            .field(item.getName())
+                            .field(item.getCategory())
+                            .field(item.getUnit())
+                            .field(item.getMinStock())
+                            .field(balances.getOrDefault(item.getId(), 0))
+                            .endRow();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                written[0] += page.size();
+                progress.accept(written[0]);
+            });
+            return written[0];
+        });
+    }
+
+    private interface ExportBody {
+        long write(CsvWriter csv) throws IOException;
+    }
+
+    private long export(Path file, AtomicBoolean cancelled, ExportBody body) throws IOException {
+        Path target = file.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".part");
+        boolean completed = false;
+        long rows;
+        try {
+            try (CsvWriter csv = new CsvWriter(temp, isGzipPath(target))) {
+                rows = body.write(csv);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (CancellationException e) {
+                cancelled.set(true);
+                rows = 0;
+            }
+            if (cancelled.get()) {
+                logger.info("Export to {} cancelled", file);
+                throw new CancellationException("Export cancelled");
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            completed = true;
+        } finally {
+            if (!completed) {
+                Files.deleteIfExists(temp);
+            }
+        }
+        logger.info("Exported {} rows to {}", rows, file);
+        return rows;
+    }
+}
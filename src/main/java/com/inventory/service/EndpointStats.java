@@ -0,0 +1,97 @@
+package com.inventory.service;
+
+import com.inventory.util.LogHistogram;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency, volume and error counters for one kind of Supabase request. Latency is kept in
+ * microseconds, from sending the request to the last byte of the response body.
+ */
+public class EndpointStats implements EndpointStatsMXBean {
+    private final RequestMetrics.Operation operation;
+    private final LogHistogram latencyMicros = new LogHistogram();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    EndpointStats(RequestMetrics.Operation operation) {
+        this.operation = operation;
+    }
+
+    void record(long elapsedNanos, long sent, long received, boolean failed) {
+        latencyMicros.record(elapsedNanos / 1_000);
+        bytesSent.addAndGet(sent);
+        bytesReceived.addAndGet(received);
+        if (failed) {
+            errors.incrementAndGet();
+        }
+    }
+
+    long getLatencyMicrosAtQuantile(double quantile) {
+        return latencyMicros.getValueAtQuantile(quantile);
+    }
+
+    @Override
+    public String getOperation() {
+        return operation.name();
+    }
+
+    @Override
+    public String getEndpoint() {
+        return operation.getEndpoint();
+    }
+
+    @Override
+    public long getCount() {
+        return latencyMicros.getCount();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.get();
+    }
+
+    @Override
+    public double getErrorRate() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) errors.get() / count;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latencyMicros.getValueAtQuantile(0.50) / 1_000.0;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latencyMicros.getValueAtQuantile(0.99) / 1_000.0;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latencyMicros.getMax() / 1_000.0;
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latencyMicros.getMean() / 1_000.0;
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    @Override
+    public void reset() {
+        latencyMicros.reset();
+        errors.set(0);
+        bytesSent.set(0);
+        bytesReceived.set(0);
+    }
+}
@@ -0,0 +1,19 @@
+package com.inventory.service;
+
+/**
+ * JMX view of one Supabase operation's request statistics; times are in milliseconds.
+ */
+public interface EndpointStatsMXBean {
+    String getOperation();
+    String getEndpoint();
+    long getCount();
+    long getErrorCount();
+    double getErrorRate();
+    double getP50Millis();
+    double getP99Millis();
+    double getMaxMillis();
+    double getMeanMillis();
+    long getBytesSent();
+    long getBytesReceived();
+    void reset();
+}
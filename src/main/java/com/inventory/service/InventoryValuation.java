@@ -0,0 +1,306 @@
+package com.inventory.service;
+
+import com.inventory.model.Transaction;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stock value per item under weighted-average and FIFO costing, kept current as transaction
+ * lines are recorded instead of re-aggregating the whole history for every report.
+ * <p>
+ * A rebuild streams every line once, groups the lines by item and replays the items in
+ * parallel on the common fork-join pool. After that only lines recorded since the last poll are
+ * fetched and folded in, in the order they were recorded. Amounts are whole cents. All state
+ * belongs to the engine's own thread, which also answers {@link #getValuationsAsync()}.
+ */
+public class InventoryValuation implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(InventoryValuation.class);
+
+    // recorded_at is the start of the database transaction that stored the line, so a slow commit can
+    // show up dated before lines already applied; every poll looks back this far and skips the lines
+    // it has seen
+    private static final Duration LOOKBACK = Duration.ofMinutes(10);
+    private static final int ITEMS_PER_REPLAY_TASK = 256;
+
+    /**
+     * Valuation of one item; amounts in cents.
+     */
+    public record ItemValuation(UUID itemId, String itemCode, String itemName, long quantity,
+                                long averageUnitCost, long averageValue, long fifoValue) { }
+
+    private final SupabaseService supabaseService;
+    private final Duration refreshInterval;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean catchUpQueued = new AtomicBoolean();
+
+    private Map<UUID, ItemCost> costs = new HashMap<>();
+    private Map<UUID, LocalDateTime> recentLines = new HashMap<>();
+    private LocalDateTime lastRecorded;
+    private boolean built;
+    private volatile Consumer<List<ItemValuation>> onChange = _ -> { };
+    private ScheduledFuture<?> refreshTask;
+
+    public InventoryValuation(SupabaseService supabaseService, Duration refreshInterval) {
+        this.supabaseService = supabaseService;
+        this.refreshInterval = refreshInterval;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "valuation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Rebuilds from the full history, then polls for new lines every refresh interval.
+     */
+    public synchronized void start() {
+        if (refreshTask == null) {
+            scheduler.execute(this::rebuildQuietly);
+            refreshTask = scheduler.scheduleWithFixedDelay(this::catchUpQuietly,
+                refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Called on the engine thread with the items whose valuation changed; after a rebuild, with
+     * every item.
+     */
+    public void setOnChange(Consumer<List<ItemValuation>> onChange) {
+        this.onChange = onChange == null ? _ -> { } : onChange;
+    }
+
+    /**
+     * Folds in lines recorded since the last poll without waiting for the next one, e.g. after a
+     * local transaction or a stock change pushed by the change feed.
+     */
+    public void refreshSoon() {
+        if (catchUpQueued.compareAndSet(false, true)) {
+            scheduler.execute(this::catchUpQuietly);
+        }
+    }
+
+    public CompletableFuture<Void> rebuildAsync() {
+        return CompletableFuture.runAsync(this::rebuild, scheduler);
+    }
+
+    public CompletableFuture<List<ItemValuation>> getValuationsAsync() {
+        return CompletableFuture.supplyAsync(() -> valuations(costs.keySet()), scheduler);
+    }
+
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.warn("Valuation rebuild failed, keeping previous valuation", e);
+        }
+    }
+
+    private void catchUpQuietly() {
+        catchUpQueued.set(false);
+        try {
+            if (built) {
+                catchUp();
+            } else {
+                rebuild();
+            }
+        } catch (Exception e) {
+            logger.warn("Valuation refresh failed", e);
+        }
+    }
+
+    private void rebuild() {
+        long started = System.nanoTime();
+        Map<UUID, LineBuffer> linesByItem = new HashMap<>();
+        Map<UUID, LocalDateTime> recent = new HashMap<>();
+        LocalDateTime[] latest = {null};
+        int lines = supabaseService.streamTransactionLines(null, SupabaseService.REPORT_PAGE_SIZE, page -> {
+            for (SupabaseService.TransactionReportRow row : page) {
+                if (row.getItemId() == null) {
+                    continue;
+                }
+                linesByItem.computeIfAbsent(row.getItemId(), _ -> new LineBuffer()).add(row);
+                latest[0] = remember(row, recent, latest[0]);
+            }
+            forgetOlderThan(recent, latest[0]);
+        });
+
+        List<UUID> itemIds = new ArrayList<>(linesByItem.keySet());
+        LineBuffer[] buffers = new LineBuffer[itemIds.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = linesByItem.get(itemIds.get(i));
+        }
+        linesByItem.clear();
+        ItemCost[] replayed = new ItemCost[buffers.length];
+        ForkJoinPool.commonPool().invoke(new ReplayTask(buffers, replayed, 0, buffers.length));
+
+        Map<UUID, ItemCost> rebuilt = new HashMap<>(Math.max(16, replayed.length * 4 / 3 + 1));
+        for (int i = 0; i < replayed.length; i++) {
+            rebuilt.put(itemIds.get(i), replayed[i]);
+        }
+        costs = rebuilt;
+        recentLines = recent;
+        lastRecorded = latest[0];
+        built = true;
+        logger.info("Valuation rebuilt from {} lines for {} items in {} ms", lines, rebuilt.size(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        onChange.accept(valuations(rebuilt.keySet()));
+    }
+
+    private void catchUp() {
+        Set<UUID> changed = new LinkedHashSet<>();
+        LocalDateTime since = lastRecorded == null ? null : lastRecorded.minus(LOOKBACK);
+        supabaseService.streamTransactionLines(since, SupabaseService.REPORT_PAGE_SIZE, page -> {
+            for (SupabaseService.TransactionReportRow row : page) {
+                if (row.getItemId() == null || recentLines.containsKey(row.getLineId())) {
+                    continue;
+                }
+                ItemCost cost = costs.computeIfAbsent(row.getItemId(), _ -> new ItemCost());
+                cost.setItem(row.getItemCode(), row.getItemName());
+                apply(cost, row.getTransactionType(), row.getQty(), cents(row.getUnitPrice()));
+                changed.add(row.getItemId());
+                lastRecorded = remember(row, recentLines, lastRecorded);
+            }
+        });
+        forgetOlderThan(recentLines, lastRecorded);
+        if (!changed.isEmpty()) {
+            onChange.accept(valuations(changed));
+        }
+    }
+
+    private List<ItemValuation> valuations(Set<UUID> itemIds) {
+        List<ItemValuation> valuations = new ArrayList<>(itemIds.size());
+        for (UUID itemId : itemIds) {
+            ItemCost cost = costs.get(itemId);
+            valuations.add(new ItemValuation(itemId, cost.getItemCode(), cost.getItemName(), cost.getQuantity(),
+                cost.getAverageUnitCost(), cost.getAverageValue(), cost.getFifoValue()));
+        }
+        return valuations;
+    }
+
+    private static LocalDateTime remember(SupabaseService.TransactionReportRow row, Map<UUID, LocalDateTime> recent,
+                                          LocalDateTime latest) {
+        LocalDateTime recorded = row.getRecordedAt();
+        if (recorded == null) {
+            return latest;
+        }
+        recent.put(row.getLineId(), recorded);
+        return latest == null || recorded.isAfter(latest) ? recorded : latest;
+    }
+
+    private static void forgetOlderThan(Map<UUID, LocalDateTime> recent, LocalDateTime latest) {
+        if (latest != null) {
+            LocalDateTime cutoff = latest.minus(LOOKBACK);
+            recent.values().removeIf(recorded -> recorded.isBefore(cutoff));
+        }
+    }
+
+    private static void apply(ItemCost cost, Transaction.TransactionType type, long qty, long unitCost) {
+        if (type == null) {
+            return;
+        }
+        switch (type) {
+            case IN -> cost.receive(qty, unitCost);
+            case ADJUST -> cost.adjust(qty, unitCost);
+            case OUT, DISPOSITION -> cost.issue(qty);
+        }
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount == null ? ItemCost.NO_PRICE : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    // One item's lines in recorded order, as primitives until they are replayed
+    private static final class LineBuffer {
+        private static final Transaction.TransactionType[] TYPES = Transaction.TransactionType.values();
+
+        private byte[] types = new byte[8];
+        private int[] quantities = new int[8];
+        private long[] unitCosts = new long[8];
+        private int size;
+        private String itemCode;
+        private String itemName;
+
+        void add(SupabaseService.TransactionReportRow row) {
+            if (size == types.length) {
+                types = Arrays.copyOf(types, size * 2);
+                quantities = Arrays.copyOf(quantities, size * 2);
+                unitCosts = Arrays.copyOf(unitCosts, size * 2);
+            }
+            Transaction.TransactionType type = row.getTransactionType();
+            types[size] = (byte) (type == null ? -1 : type.ordinal());
+            quantities[size] = row.getQty();
+            unitCosts[size] = cents(row.getUnitPrice());
+            size++;
+            itemCode = row.getItemCode() != null ? row.getItemCode() : itemCode;
+            itemName = row.getItemName() != null ? row.getItemName() : itemName;
+        }
+
+        ItemCost replay() {
+            ItemCost cost = new ItemCost();
+            cost.setItem(itemCode, itemName);
+            for (int i = 0; i < size; i++) {
+                apply(cost, types[i] < 0 ? null : TYPES[types[i]], quantities[i], unitCosts[i]);
+            }
+            return cost;
+        }
+    }
+
+    // Items are independent, so each task replays its own slice of them
+    @SuppressWarnings("serial") // Only ever run on the fork-join pool, never serialized
+    private static final class ReplayTask extends RecursiveAction {
+        private final LineBuffer[] buffers;
+        private final ItemCost[] results;
+        private final int from;
+        private final int to;
+
+        ReplayTask(LineBuffer[] buffers, ItemCost[] results, int from, int to) {
+            this.buffers = buffers;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ITEMS_PER_REPLAY_TASK) {
+                for (int i = from; i < to; i++) {
+                    results[i] = buffers[i].replay();
+                    buffers[i] = null;
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ReplayTask(buffers, results, from, middle), new ReplayTask(buffers, results, middle, to));
+        }
+    }
+}
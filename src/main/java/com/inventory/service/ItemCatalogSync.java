@@ -0,0 +1,87 @@
+package com.inventory.service;
+
+import com.inventory.model.Item;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps a local item store in step with the server by pulling only rows whose
+ * updated_at moved past a high-water mark. Inactive rows are removed locally.
+ * <p>
+ * {@link #track} and {@link #merge} must be called on the thread that owns the
+ * store (the FX thread for the Items table).
+ */
+public class ItemCatalogSync {
+
+    // Re-read a little before the mark so rows committed slightly out of order are not missed;
+    // merging is idempotent, so the overlap only costs a few repeated rows.
+    private static final long OVERLAP_SECONDS = 5;
+
+    private final SupabaseService supabaseService;
+    private volatile LocalDateTime highWaterMark;
+
+    public ItemCatalogSync(SupabaseService supabaseService) {
+        this.supabaseService = supabaseService;
+    }
+
+    /**
+     * Forgets everything; call before a full reload.
+     */
+    public void reset() {
+        highWaterMark = null;
+    }
+
+    /**
+     * Records items that were added to the store by a full load.
+     */
+    public void track(Collection<Item> items) {
+        for (Item item : items) {
+            advanceMark(item);
+        }
+    }
+
+    public CompletableFuture<List<Item>> fetchChanges() {
+        LocalDateTime mark = highWaterMark;
+        return supabaseService.getItemsChangedSinceAsync(mark == null ? null : mark.minusSeconds(OVERLAP_SECONDS));
+    }
+
+    /**
+     * Applies changed rows to {@code target}: new items are appended, known items replace their
+     * row and deactivated items are removed.
+     *
+     * @return true if an existing item was replaced
+     */
+    public boolean merge(ItemStore target, List<Item> changes) {
+        boolean replaced = false;
+        // Removed together at the end, so k deactivations cost one pass over the store instead of k
+        Set<UUID> deactivated = new HashSet<>();
+        for (Item change : changes) {
+            int row = target.rowOf(change.getId());
+            if (!change.isActive()) {
+                deactivated.add(change.getId());
+            } else if (row >= 0) {
+                deactivated.remove(change.getId());
+                target.set(row, change);
+                replaced = true;
+            } else {
+                deactivated.remove(change.getId());
+                target.add(change);
+            }
+            advanceMark(change);
+        }
+        target.removeAll(deactivated);
+        return replaced;
+    }
+
+    private void advanceMark(Item item) {
+        LocalDateTime updatedAt = item.getUpdatedAt();
+        if (updatedAt != null && (highWaterMark == null || updatedAt.isAfter(highWaterMark))) {
+            highWaterMark = updatedAt;
+        }
+    }
+}
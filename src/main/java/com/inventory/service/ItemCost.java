@@ -0,0 +1,150 @@
+package com.inventory.service;
+
+import java.util.Arrays;
+
+/**
+ * Running cost of one item under both weighted-average and FIFO costing, in whole cents.
+ * <p>
+ * FIFO keeps one layer (quantity, unit cost) per receipt. Stock issued beyond what is on hand
+ * becomes a deficit valued at the last known unit cost; the next receipts cover it before they
+ * open a layer. Not thread-safe.
+ */
+final class ItemCost {
+    static final long NO_PRICE = Long.MIN_VALUE;
+
+    private String itemCode;
+    private String itemName;
+    private long quantity;
+    // Weighted average
+    private long averageValue;
+    private long averageUnitCost;
+    // FIFO layers, oldest at head
+    private long[] layerQuantities = new long[4];
+    private long[] layerCosts = new long[4];
+    private int head;
+    private int tail;
+    private long fifoValue;
+    private long deficit;
+    private long lastUnitCost;
+
+    void setItem(String itemCode, String itemName) {
+        if (itemCode != null) {
+            this.itemCode = itemCode;
+        }
+        if (itemName != null) {
+            this.itemName = itemName;
+        }
+    }
+
+    /**
+     * Adds stock. Without a price it comes in at the current average cost.
+     */
+    void receive(long qty, long unitCost) {
+        if (qty <= 0) {
+            return;
+        }
+        long cost = unitCost == NO_PRICE ? averageUnitCost : unitCost;
+        long before = quantity;
+        quantity += qty;
+        if (before < 0) {
+            // Units issued while short are re-costed at this receipt
+            averageValue = quantity > 0 ? Math.multiplyExact(quantity, cost) : Math.multiplyExact(quantity, averageUnitCost);
+        } else {
+            averageValue = Math.addExact(averageValue, Math.multiplyExact(qty, cost));
+        }
+        if (quantity > 0) {
+            averageUnitCost = divideRounded(averageValue, quantity);
+        }
+
+        long covered = Math.min(qty, deficit);
+        deficit -= covered;
+        if (qty > covered) {
+            pushLayer(qty - covered, cost);
+        }
+        lastUnitCost = cost;
+    }
+
+    /**
+     * Removes stock at the current average cost and from the oldest FIFO layers.
+     */
+    void issue(long qty) {
+        if (qty <= 0) {
+            return;
+        }
+        long before = quantity;
+        quantity -= qty;
+        if (quantity == 0) {
+            averageValue = 0;
+        } else if (quantity > 0) {
+            averageValue = Math.subtractExact(averageValue, Math.multiplyExact(qty, averageUnitCost));
+        } else if (before >= 0) {
+            averageValue = Math.multiplyExact(quantity, averageUnitCost);
+        } else {
+            averageValue = Math.subtractExact(averageValue, Math.multiplyExact(qty, averageUnitCost));
+        }
+
+        long remaining = qty;
+        while (remaining > 0 && head < tail) {
+            long taken = Math.min(remaining, layerQuantities[head]);
+            layerQuantities[head] -= taken;
+            fifoValue = Math.subtractExact(fifoValue, Math.multiplyExact(taken, layerCosts[head]));
+            remaining -= taken;
+            if (layerQuantities[head] == 0) {
+                head++;
+            }
+        }
+        if (head == tail) {
+            head = 0;
+            tail = 0;
+        }
+        deficit += remaining;
+    }
+
+    /**
+     * Applies a stock adjustment, which may go either way.
+     */
+    void adjust(long qty, long unitCost) {
+        if (qty > 0) {
+            receive(qty, unitCost);
+        } else {
+            issue(-qty);
+        }
+    }
+
+    String getItemCode() { return itemCode; }
+    String getItemName() { return itemName; }
+    long getQuantity() { return quantity; }
+    long getAverageUnitCost() { return averageUnitCost; }
+    long getAverageValue() { return averageValue; }
+
+    long getFifoValue() {
+        return Math.subtractExact(fifoValue, Math.multiplyExact(deficit, lastUnitCost));
+    }
+
+    private void pushLayer(long qty, long cost) {
+        if (tail > head && layerCosts[tail - 1] == cost) {
+            layerQuantities[tail - 1] += qty;
+        } else {
+            if (tail == layerQuantities.length) {
+                if (head > tail / 2) {
+                    // Mostly consumed: slide the live layers down instead of growing
+                    System.arraycopy(layerQuantities, head, layerQuantities, 0, tail - head);
+                    System.arraycopy(layerCosts, head, layerCosts, 0, tail - head);
+                    tail -= head;
+                    head = 0;
+                } else {
+                    layerQuantities = Arrays.copyOf(layerQuantities, tail * 2);
+                    layerCosts = Arrays.copyOf(layerCosts, tail * 2);
+                }
+            }
+            layerQuantities[tail] = qty;
+            layerCosts[tail] = cost;
+            tail++;
+        }
+        fifoValue = Math.addExact(fifoValue, Math.multiplyExact(qty, cost));
+    }
+
+    private static long divideRounded(long value, long divisor) {
+        return Math.floorDiv(value + divisor / 2, divisor);
+    }
+}
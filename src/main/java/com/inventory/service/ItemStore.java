@@ -0,0 +1,353 @@
+package com.inventory.service;
+
+import com.inventory.model.Item;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Column-oriented in-memory item catalogue.
+ * <p>
+ * Instead of one {@link Item} (plus UUID and LocalDateTime objects) per row, each field lives in
+ * its own array: ids as two {@code long[]} halves, category and unit as indexes into a shared
+ * dictionary, min stock as an {@code int[]}, the palindrome/active flags in bitsets and
+ * updated_at as epoch microseconds. Lookup by id goes through an open-addressing table of row
+ * numbers rather than a boxed map.
+ * <p>
+ * {@link #get} returns a detached {@link Item} built from the row, so only rows that are actually
+ * displayed exist as objects; changing such a view does not change the store. created_at is not
+ * kept. Not thread-safe; the owning thread also receives the {@link Listener} calls.
+ */
+public class ItemStore {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int VIEW_CACHE_SIZE = 256;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    /**
+     * Told about every change after it has been applied.
+     */
+    public interface Listener {
+        void added(int from, int to);
+
+        void replaced(int row, Item previous);
+
+        /**
+         * @param rows the removed rows in ascending order, numbered as they were before the removal
+         */
+        void removed(int[] rows, List<Item> removed);
+
+        /**
+         * Every row was removed; the rows are not built as items, since nobody needs them.
+         */
+        void cleared(int previousSize);
+    }
+
+    private final Dictionary dictionary = new Dictionary();
+    private long[] idHigh = new long[INITIAL_CAPACITY];
+    private long[] idLow = new long[INITIAL_CAPACITY];
+    private String[] codes = new String[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] categories = new int[INITIAL_CAPACITY];
+    private int[] units = new int[INITIAL_CAPACITY];
+    private int[] minStocks = new int[INITIAL_CAPACITY];
+    private long[] updatedAtMicros = new long[INITIAL_CAPACITY];
+    private final BitSet palindromes = new BitSet();
+    private final BitSet actives = new BitSet();
+    private int size;
+    // Row + 1 per slot, 0 = empty
+    private int[] index = new int[INITIAL_CAPACITY * 2];
+    // Recently built views, so a table asking for the same row many times per pulse gets one object
+    private final Item[] views = new Item[VIEW_CACHE_SIZE];
+    private final int[] viewRows = new int[VIEW_CACHE_SIZE];
+    private Listener listener = new Listener() {
+        @Override
+        public void added(int from, int to) { }
+
+        @Override
+        public void replaced(int row, Item previous) { }
+
+        @Override
+        public void removed(int[] rows, List<Item> removed) { }
+
+        @Override
+        public void cleared(int previousSize) { }
+    };
+
+    public ItemStore() {
+        Arrays.fill(viewRows, -1);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the row holding {@code id}, or -1
+     */
+    public int rowOf(UUID id) {
+        return find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+
+    public Item get(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException(row);
+        }
+        int slot = row & (VIEW_CACHE_SIZE - 1);
+        if (viewRows[slot] != row) {
+            views[slot] = materialize(row);
+            viewRows[slot] = row;
+        }
+        return views[slot];
+    }
+
+    /**
+     * Appends {@code items}; one that is already stored replaces its row instead.
+     */
+    public void addAll(Collection<Item> items) {
+        // Replacements are announced first, so listeners never see a size that includes unannounced rows
+        List<Item> appended = new ArrayList<>();
+        for (Item item : items) {
+            int row = rowOf(item.getId());
+            if (row >= 0) {
+                set(row, item);
+            } else {
+                appended.add(item);
+            }
+        }
+        if (appended.isEmpty()) {
+            return;
+        }
+        int from = size;
+        ensureCapacity(size + appended.size());
+        for (Item item : appended) {
+            int row = rowOf(item.getId());
+            if (row >= from) {
+                // The same id twice in one batch: the later version wins
+                write(row, item);
+            } else {
+                write(size, item);
+                insertIndex(size);
+                size++;
+            }
+        }
+        invalidateViews();
+        listener.added(from, size);
+    }
+
+    public void add(Item item) {
+        addAll(List.of(item));
+    }
+
+    public void set(int row, Item item) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException(row);
+        }
+        Item previous = materialize(row);
+        boolean sameId = previous.getId().equals(item.getId());
+        write(row, item);
+        if (!sameId) {
+            rebuildIndex();
+        }
+        invalidateViews();
+        listener.replaced(row, previous);
+    }
+
+    public void remove(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException(row);
+        }
+        BitSet doomed = new BitSet();
+        doomed.set(row);
+        removeRows(doomed);
+    }
+
+    /**
+     * Removes the rows holding {@code ids}, closing the gaps in one pass; unknown ids are ignored.
+     */
+    public void removeAll(Collection<UUID> ids) {
+        BitSet doomed = new BitSet(size);
+        for (UUID id : ids) {
+            int row = rowOf(id);
+            if (row >= 0) {
+                doomed.set(row);
+            }
+        }
+        if (!doomed.isEmpty()) {
+            removeRows(doomed);
+        }
+    }
+
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        int previousSize = size;
+        Arrays.fill(codes, 0, size, null);
+        Arrays.fill(names, 0, size, null);
+        palindromes.clear();
+        actives.clear();
+        Arrays.fill(index, 0);
+        size = 0;
+        invalidateViews();
+        listener.cleared(previousSize);
+    }
+
+    private void removeRows(BitSet doomed) {
+        int[] rows = new int[doomed.cardinality()];
+        List<Item> removed = new ArrayList<>(rows.length);
+        int first = doomed.nextSetBit(0);
+        int kept = first;
+        for (int row = first, i = 0; row < size; row++) {
+            if (doomed.get(row)) {
+                rows[i++] = row;
+                removed.add(materialize(row));
+            } else {
+                move(row, kept++);
+            }
+        }
+        Arrays.fill(codes, kept, size, null);
+        Arrays.fill(names, kept, size, null);
+        palindromes.clear(kept, size);
+        actives.clear(kept, size);
+        size = kept;
+        rebuildIndex();
+        invalidateViews();
+        listener.removed(rows, removed);
+    }
+
+    private void move(int from, int to) {
+        idHigh[to] = idHigh[from];
+        idLow[to] = idLow[from];
+        codes[to] = codes[from];
+        names[to] = names[from];
+        categories[to] = categories[from];
+        units[to] = units[from];
+        minStocks[to] = minStocks[from];
+        updatedAtMicros[to] = updatedAtMicros[from];
+        palindromes.set(to, palindromes.get(from));
+        actives.set(to, actives.get(from));
+    }
+
+    private Item materialize(int row) {
+        Item item = new Item();
+        item.setId(new UUID(idHigh[row], idLow[row]));
+        item.setItemCode(codes[row]);
+        item.setName(names[row]);
+        item.setCategory(dictionary.value(categories[row]));
+        item.setUnit(dictionary.value(units[row]));
+        item.setMinStock(minStocks[row]);
+        item.setPalindrome(palindromes.get(row));
+        item.setActive(actives.get(row));
+        long micros = updatedAtMicros[row];
+        if (micros != NO_TIMESTAMP) {
+            item.setUpdatedAt(LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC));
+        }
+        return item;
+    }
+
+    private void write(int row, Item item) {
+        idHigh[row] = item.getId().getMostSignificantBits();
+        idLow[row] = item.getId().getLeastSignificantBits();
+        codes[row] = item.getItemCode();
+        names[row] = item.getName();
+        categories[row] = dictionary.idOf(item.getCategory());
+        units[row] = dictionary.idOf(item.getUnit());
+        minStocks[row] = item.getMinStock();
+        palindromes.set(row, item.isPalindrome());
+        actives.set(row, item.isActive());
+        LocalDateTime updatedAt = item.getUpdatedAt();
+        updatedAtMicros[row] = updatedAt == null ? NO_TIMESTAMP
+            : ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), updatedAt);
+    }
+
+    private void invalidateViews() {
+        Arrays.fill(viewRows, -1);
+        Arrays.fill(views, null);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= idHigh.length) {
+            return;
+        }
+        int grown = Math.max(capacity, idHigh.length * 2);
+        idHigh = Arrays.copyOf(idHigh, grown);
+        idLow = Arrays.copyOf(idLow, grown);
+        codes = Arrays.copyOf(codes, grown);
+        names = Arrays.copyOf(names, grown);
+        categories = Arrays.copyOf(categories, grown);
+        units = Arrays.copyOf(units, grown);
+        minStocks = Arrays.copyOf(minStocks, grown);
+        updatedAtMicros = Arrays.copyOf(updatedAtMicros, grown);
+        // At most half full, and a power of two so a slot is a mask away
+        index = new int[Integer.highestOneBit(grown - 1) << 2];
+        rebuildIndex();
+    }
+
+    private int find(long high, long low) {
+        int mask = index.length - 1;
+        for (int slot = slot(high, low, mask); index[slot] != 0; slot = (slot + 1) & mask) {
+            int row = index[slot] - 1;
+            if (idHigh[row] == high && idLow[row] == low) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private void insertIndex(int row) {
+        int mask = index.length - 1;
+        int slot = slot(idHigh[row], idLow[row], mask);
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = row + 1;
+    }
+
+    private void rebuildIndex() {
+        Arrays.fill(index, 0);
+        for (int row = 0; row < size; row++) {
+            insertIndex(row);
+        }
+    }
+
+    private static int slot(long high, long low, int mask) {
+        long hash = (high ^ low) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+
+    // Distinct category/unit strings, each stored once; there are only a few dozen of them
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int idOf(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                values.add(value);
+                ids.put(value, id);
+            }
+            return id;
+        }
+
+        String value(int id) {
+            return id < 0 ? null : values.get(id);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.inventory.service;
+
+import com.inventory.model.Item;
+import java.util.UUID;
+
+/**
+ * In-process change feed: whatever is published is delivered to the listener on the caller's
+ * thread. Stands in for Supabase Realtime in tests and when realtime is switched off.
+ */
+public class LocalChangeFeed implements ChangeFeed {
+    private volatile Listener listener;
+
+    @Override
+    public void start(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void publishItem(Item item) {
+        Listener current = listener;
+        if (current != null) {
+            current.itemChanged(item);
+        }
+    }
+
+    public void publishStock(UUID itemId, int quantity) {
+        Listener current = listener;
+        if (current != null) {
+            current.stockChanged(itemId, quantity);
+        }
+    }
+
+    @Override
+    public void close() {
+        listener = null;
+    }
+}
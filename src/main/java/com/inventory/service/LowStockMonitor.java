@@ -0,0 +1,132 @@
+package com.inventory.service;
+
+import com.inventory.model.Item;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.ToIntFunction;
+
+/**
+ * Keeps the items whose stock is below their minimum stock, ordered by shortfall (largest first).
+ * <p>
+ * Only items with a minimum stock are tracked. Every item or balance change re-checks just that
+ * item, at O(log n) in the number of shortages, so reading the list never scans the catalogue.
+ * Safe to call from any thread; the {@link Listener} runs on the thread that made the change.
+ */
+public class LowStockMonitor {
+
+    public record Shortage(UUID itemId, String itemCode, String itemName, int minStock, int stock) {
+        public int shortfall() {
+            return minStock - stock;
+        }
+    }
+
+    public interface Listener {
+        /**
+         * An item became short ({@code previous} null), changed shortfall, or recovered
+         * ({@code current} null).
+         */
+        void shortageChanged(Shortage previous, Shortage current);
+    }
+
+    private static final Comparator<Shortage> BY_SHORTFALL = Comparator.comparingInt(Shortage::shortfall).reversed()
+        .thenComparing(Shortage::itemCode, Comparator.nullsLast(Comparator.naturalOrder()))
+        .thenComparing(Shortage::itemId);
+
+    private record Threshold(String itemCode, String itemName, int minStock) { }
+
+    private final ToIntFunction<UUID> stockLookup;
+    private final Map<UUID, Threshold> thresholds = new HashMap<>();
+    private final Map<UUID, Shortage> shortages = new HashMap<>();
+    private final NavigableSet<Shortage> ordered = new TreeSet<>(BY_SHORTFALL);
+    private volatile Listener listener = (_, __) -> { };
+
+    /**
+     * @param stockLookup current stock of an item, used when its minimum stock is first seen
+     */
+    public LowStockMonitor(ToIntFunction<UUID> stockLookup) {
+        this.stockLookup = stockLookup;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener == null ? (_, __) -> { } : listener;
+    }
+
+    /**
+     * Adds items from the initial load. Unlike {@link #itemsChanged}, items found short here are
+     * not reported to the listener.
+     */
+    public synchronized void load(Collection<Item> items) {
+        for (Item item : items) {
+            update(item, false);
+        }
+    }
+
+    /**
+     * Applies edited, new or deactivated items.
+     */
+    public synchronized void itemsChanged(Collection<Item> items) {
+        for (Item item : items) {
+            update(item, true);
+        }
+    }
+
+    public synchronized void stockChanged(Map<UUID, Integer> balances) {
+        balances.forEach((itemId, quantity) -> {
+            Threshold threshold = thresholds.get(itemId);
+            if (threshold != null) {
+                evaluate(itemId, threshold, quantity, true);
+            }
+        });
+    }
+
+    /**
+     * @return the current shortages, largest shortfall first
+     */
+    public synchronized List<Shortage> getShortages() {
+        return new ArrayList<>(ordered);
+    }
+
+    public synchronized int getShortageCount() {
+        return ordered.size();
+    }
+
+    private void update(Item item, boolean notify) {
+        if (!item.isActive() || item.getMinStock() <= 0) {
+            thresholds.remove(item.getId());
+            replace(item.getId(), null, notify);
+            return;
+        }
+        Threshold threshold = new Threshold(item.getItemCode(), item.getName(), item.getMinStock());
+        thresholds.put(item.getId(), threshold);
+        evaluate(item.getId(), threshold, stockLookup.applyAsInt(item.getId()), notify);
+    }
+
+    private void evaluate(UUID itemId, Threshold threshold, int stock, boolean notify) {
+        replace(itemId, stock < threshold.minStock()
+            ? new Shortage(itemId, threshold.itemCode(), threshold.itemName(), threshold.minStock(), stock)
+            : null, notify);
+    }
+
+    private void replace(UUID itemId, Shortage current, boolean notify) {
+        Shortage previous = current == null ? shortages.remove(itemId) : shortages.put(itemId, current);
+        if (previous == null && current == null || previous != null && previous.equals(current)) {
+            return;
+        }
+        if (previous != null) {
+            ordered.remove(previous);
+        }
+        if (current != null) {
+            ordered.add(current);
+        }
+        if (notify) {
+            listener.shortageChanged(previous, current);
+        }
+    }
+}
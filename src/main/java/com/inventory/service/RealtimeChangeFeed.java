@@ -0,0 +1,221 @@
+package com.inventory.service;
+
+import com.inventory.model.Item;
+import java.io.StringReader;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Change feed backed by Supabase Realtime: one websocket speaking the Phoenix channel protocol,
+ * subscribed to postgres_changes on items and stock_balance_location. Reconnects with backoff and asks the
+ * listener to resynchronize after every (re)join, since changes in between are not replayed.
+ * <p>
+ * All sends happen on one scheduler thread, as the JDK websocket allows only one outstanding send.
+ */
+public class RealtimeChangeFeed implements ChangeFeed {
+    private static final Logger logger = LoggerFactory.getLogger(RealtimeChangeFeed.class);
+
+    private static final String TOPIC = "realtime:inventory";
+    private static final long HEARTBEAT_SECONDS = 25;
+    private static final long MIN_RECONNECT_DELAY_MS = 1_000;
+    private static final long MAX_RECONNECT_DELAY_MS = 60_000;
+
+    private final HttpClient httpClient;
+    private final URI uri;
+    private final String apiKey;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicInteger ref = new AtomicInteger();
+    private volatile Listener listener;
+    private volatile WebSocket webSocket;
+    private volatile long reconnectDelay = MIN_RECONNECT_DELAY_MS;
+    private volatile boolean closed;
+
+    public RealtimeChangeFeed(String baseUrl, String apiKey, HttpClient httpClient) {
+        this.httpClient = httpClient;
+        this.apiKey = apiKey;
+        this.uri = URI.create(baseUrl.replaceFirst("^http", "ws") + "/realtime/v1/websocket?apikey="
+            + URLEncoder.encode(apiKey, StandardCharsets.UTF_8) + "&vsn=1.0.0");
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "realtime-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void start(Listener listener) {
+        this.listener = listener;
+        scheduler.execute(this::connect);
+        scheduler.scheduleWithFixedDelay(this::heartbeat, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void connect() {
+        if (closed) {
+            return;
+        }
+        httpClient.newWebSocketBuilder()
+            .connectTimeout(SupabaseTransport.CONNECT_TIMEOUT)
+            .buildAsync(uri, new Receiver())
+            .whenComplete((socket, error) -> {
+                if (error != null) {
+                    logger.warn("Realtime connection failed: {}", error.getMessage());
+                    scheduleReconnect();
+                } else {
+                    scheduler.execute(() -> join(socket));
+                }
+            });
+    }
+
+    private void join(WebSocket socket) {
+        webSocket = socket;
+        JsonObject table = Json.createObjectBuilder().add("event", "*").add("schema", "public").build();
+        JsonObject payload = Json.createObjectBuilder()
+            .add("config", Json.createObjectBuilder()
+                .add("postgres_changes", Json.createArrayBuilder()
+                    .add(Json.createObjectBuilder(table).add("table", "items"))
+                    .add(Json.createObjectBuilder(table).add("table", "stock_balance_location"))))
+            .add("access_token", apiKey)
+            .build();
+        if (send(socket, TOPIC, "phx_join", payload)) {
+            reconnectDelay = MIN_RECONNECT_DELAY_MS;
+            logger.info("Subscribed to Supabase Realtime changes");
+            listener.resynchronize();
+        }
+    }
+
+    private void heartbeat() {
+        WebSocket socket = webSocket;
+        if (socket != null) {
+            send(socket, "phoenix", "heartbeat", JsonObject.EMPTY_JSON_OBJECT);
+        }
+    }
+
+    private boolean send(WebSocket socket, String topic, String event, JsonObject payload) {
+        String message = Json.createObjectBuilder()
+            .add("topic", topic)
+            .add("event", event)
+            .add("payload", payload)
+            .add("ref", String.valueOf(ref.incrementAndGet()))
+            .build()
+            .toString();
+        try {
+            socket.sendText(message, true).join();
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("Realtime send failed: {}", e.getMessage());
+            socket.abort();
+            disconnected(socket);
+            return false;
+        }
+    }
+
+    // Reconnects once per lost socket, even if both onError and onClose report it
+    private void disconnected(WebSocket socket) {
+        if (webSocket == socket) {
+            webSocket = null;
+            scheduleReconnect();
+        }
+    }
+
+    private void scheduleReconnect() {
+        if (closed) {
+            return;
+        }
+        long delay = reconnectDelay;
+        reconnectDelay = Math.min(delay * 2, MAX_RECONNECT_DELAY_MS);
+        scheduler.schedule(this::connect, delay + ThreadLocalRandom.current().nextLong(delay / 2 + 1), TimeUnit.MILLISECONDS);
+    }
+
+    private void handle(String message) {
+        JsonObject envelope;
+        try (JsonReader reader = Json.createReader(new StringReader(message))) {
+            envelope = reader.readObject();
+        }
+        String event = envelope.getString("event", "");
+        if ("phx_reply".equals(event)) {
+            JsonObject payload = envelope.getJsonObject("payload");
+            if (payload != null && !"ok".equals(payload.getString("status", "ok"))) {
+                logger.warn("Realtime rejected a request: {}", payload);
+            }
+            return;
+        }
+        if (!"postgres_changes".equals(event)) {
+            return;
+        }
+        JsonObject data = envelope.getJsonObject("payload").getJsonObject("data");
+        boolean deleted = "DELETE".equals(data.getString("type"));
+        JsonObject row = deleted ? data.getJsonObject("old_record") : data.getJsonObject("record");
+        switch (data.getString("table")) {
+            case "items" -> {
+                Item item;
+                if (deleted) {
+                    item = new Item();
+                    item.setId(UUID.fromString(row.getString("id")));
+                } else {
+                    item = SupabaseService.readItem(row);
+                }
+                listener.itemChanged(item);
+            }
+            // A row is one shard of one location, so only the item is known; its total is read back
+            case "stock_balance_location" -> listener.stockMoved(UUID.fromString(row.getString("item_id")));
+            default -> { }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdownNow();
+        WebSocket socket = webSocket;
+        if (socket != null) {
+            socket.sendClose(WebSocket.NORMAL_CLOSURE, "").whenComplete((_, __) -> socket.abort());
+        }
+    }
+
+    private final class Receiver implements WebSocket.Listener {
+        private final StringBuilder text = new StringBuilder();
+
+        @Override
+        public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+            text.append(data);
+            if (last) {
+                try {
+                    handle(text.toString());
+                } catch (RuntimeException e) {
+                    logger.warn("Ignoring unreadable Realtime message", e);
+                }
+                text.setLength(0);
+            }
+            socket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket socket, int statusCode, String reason) {
+            logger.info("Realtime connection closed ({} {})", statusCode, reason);
+            disconnected(socket);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket socket, Throwable error) {
+            logger.warn("Realtime connection lost: {}", error.getMessage());
+            disconnected(socket);
+        }
+    }
+}
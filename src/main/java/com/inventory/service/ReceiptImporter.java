@@ -0,0 +1,201 @@
+package com.inventory.service;
+
+import com.inventory.model.Transaction;
+import com.inventory.model.TransactionLine;
+import com.inventory.util.CsvReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.IntConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bulk-loads supplier receipts from CSV as IN transactions, one per (date, reference).
+ * <p>
+ * Expected header: {@code date,reference,item_code,qty} plus optional {@code unit_price} and
+ * {@code notes}. The whole file is checked before anything is sent. Transaction and line ids are
+ * derived from the date, reference and the receipt's lines, so importing the same file again does
+ * not create duplicates, while a different receipt that reuses a supplier reference on the same day
+ * is still recorded rather than taken for one already imported.
+ */
+public class ReceiptImporter {
+    private static final Logger logger = LoggerFactory.getLogger(ReceiptImporter.class);
+    private static final int MAX_REPORTED_PROBLEMS = 20;
+
+    private final SupabaseService supabaseService;
+
+    public ReceiptImporter(SupabaseService supabaseService) {
+        this.supabaseService = supabaseService;
+    }
+
+    /**
+     * @param dryRun only read and check the file
+     * @param progress receives the number of transactions sent so far
+     * @return the receipts read from the file (and sent, unless {@code dryRun})
+     * @throws IllegalArgumentException if the file has invalid rows or unknown item codes
+     */
+    public List<Transaction> importReceipts(Path file, boolean dryRun, IntConsumer progress) throws IOException {
+        List<ReceiptRow> rows = new ArrayList<>();
+        List<String> problems = new ArrayList<>();
+        try (CsvReader csv = new CsvReader(file)) {
+            List<String> header = csv.next();
+            if (header == null) {
+                throw new IllegalArgumentException(file + " is empty");
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            for (String required : List.of("date", "reference", "item_code", "qty")) {
+                if (!columns.containsKey(required)) {
+                    throw new IllegalArgumentException(file + " has no '" + required + "' column");
+                }
+            }
+            List<String> fields;
+            while ((fields = csv.next()) != null) {
+                if (fields.size() == 1 && fields.get(0).isBlank()) {
+                    continue;
+                }
+                try {
+                    rows.add(ReceiptRow.parse(fields, columns, csv.getLineNumber()));
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    problems.add("line " + csv.getLineNumber() + ": " + e.getMessage());
+                }
+            }
+        }
+
+        Map<String, UUID> itemIds = resolveItemCodes(rows);
+        for (ReceiptRow row : rows) {
+            if (!itemIds.containsKey(row.itemCode)) {
+                problems.add("line " + row.line + ": unknown or inactive item code " + row.itemCode);
+            }
+        }
+        if (!problems.isEmpty()) {
+            StringBuilder message = new StringBuilder(file + " has " + problems.size() + " problem(s):");
+            problems.stream().limit(MAX_REPORTED_PROBLEMS).forEach(problem -> message.append("\n  ").append(problem));
+            if (problems.size() > MAX_REPORTED_PROBLEMS) {
+                message.append("\n  ...");
+            }
+            throw new IllegalArgumentException(message.toString());
+        }
+
+        List<Transaction> receipts = group(rows, itemIds);
+        if (!dryRun) {
+            int sent = 0;
+            for (Transaction receipt : receipts) {
+                supabaseService.sendTransaction(receipt);
+                progress.accept(++sent);
+            }
+            logger.info("Imported {} receipts with {} lines from {}", receipts.size(), rows.size(), file);
+        }
+        return receipts;
+    }
+
+    // Only the codes used in the file are kept while the catalogue streams past
+    private Map<String, UUID> resolveItemCodes(List<ReceiptRow> rows) {
+        Set<String> wanted = new HashSet<>();
+        for (ReceiptRow row : rows) {
+            wanted.add(row.itemCode);
+        }
+        Map<String, UUID> itemIds = new HashMap<>();
+        if (!wanted.isEmpty()) {
+            supabaseService.streamItems(SupabaseService.ITEM_PAGE_SIZE, SupabaseService.ItemProjection.PICKER, page ->
+                page.stream()
+                    .filter(item -> wanted.contains(item.getItemCode()))
+                    .forEach(item -> itemIds.put(item.getItemCode(), item.getId())));
+        }
+        return itemIds;
+    }
+
+    private static List<Transaction> group(List<ReceiptRow> rows, Map<String, UUID> itemIds) {
+        Map<String, List<ReceiptRow>> rowsByReceipt = new LinkedHashMap<>();
+        for (ReceiptRow row : rows) {
+            rowsByReceipt.computeIfAbsent(row.date + "|" + row.reference, _ -> new ArrayList<>()).add(row);
+        }
+        List<Transaction> receipts = new ArrayList<>(rowsByReceipt.size());
+        rowsByReceipt.forEach((key, receiptRows) -> {
+            // The server ignores an id it already has, so the id must change whenever the content does
+            StringBuilder name = new StringBuilder("receipt|").append(key);
+            for (ReceiptRow row : receiptRows) {
+                name.append('|').append(itemIds.get(row.itemCode)).append(':').append(row.qty)
+                    .append(':').append(row.unitPrice == null ? "" : row.unitPrice.toPlainString());
+            }
+            ReceiptRow first = receiptRows.get(0);
+            Transaction receipt = new Transaction(Transaction.TransactionType.IN, first.reference, null);
+            receipt.setId(stableId(name.toString()));
+            receipt.setTxDate(first.date);
+            receipt.setNotes(first.notes);
+            for (ReceiptRow row : receiptRows) {
+                TransactionLine line = new TransactionLine(itemIds.get(row.itemCode), row.qty, row.unitPrice);
+                line.setId(stableId(receipt.getId() + "|" + receipt.getLines().size()));
+                line.setTransactionId(receipt.getId());
+                receipt.addLine(line);
+            }
+            receipts.add(receipt);
+        });
+        return receipts;
+    }
+
+    private static UUID stableId(String name) {
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record ReceiptRow(long line, LocalDate date, String reference, String itemCode, int qty,
+                              BigDecimal unitPrice, String notes) {
+
+        static ReceiptRow parse(List<String> fields, Map<String, Integer> columns, long line) {
+            String reference = field(fields, columns, "reference");
+            String itemCode = field(fields, columns, "item_code");
+            if (reference == null) {
+                throw new IllegalArgumentException("reference is required");
+            }
+            if (itemCode == null) {
+                throw new IllegalArgumentException("item_code is required");
+            }
+            String date = field(fields, columns, "date");
+            if (date == null) {
+                throw new IllegalArgumentException("date is required");
+            }
+            int qty;
+            try {
+                qty = Integer.parseInt(String.valueOf(field(fields, columns, "qty")));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("qty must be a whole number");
+            }
+            if (qty <= 0) {
+                throw new IllegalArgumentException("qty must be positive");
+            }
+            String price = field(fields, columns, "unit_price");
+            BigDecimal unitPrice;
+            try {
+                unitPrice = price == null ? null : new BigDecimal(price);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("unit_price is not a number: " + price);
+            }
+            return new ReceiptRow(line, LocalDate.parse(date), reference, itemCode, qty, unitPrice,
+                field(fields, columns, "notes"));
+        }
+
+        private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+            Integer index = columns.get(name);
+            if (index == null || index >= fields.size()) {
+                return null;
+            }
+            String value = fields.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+}
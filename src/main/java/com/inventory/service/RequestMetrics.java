@@ -0,0 +1,244 @@
+package com.inventory.service;
+
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide request statistics for every Supabase operation, registered with JMX under
+ * {@code com.inventory:type=SupabaseRequests,operation=...}. Stats are looked up by enum ordinal
+ * and updated with atomics only, so recording adds no allocation to the request it measures.
+ */
+public final class RequestMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(RequestMetrics.class);
+
+    /**
+     * Every kind of Supabase request, with its deadline and whether it may be retried (reads, and
+     * writes keyed by a client-generated id) or hedged (reads only).
+     */
+    public enum Operation {
+        CREATE_ITEM("POST /items", Duration.ofSeconds(10), true, false),
+        UPDATE_ITEM("PATCH /items", Duration.ofSeconds(10), true, false),
+        DELETE_ITEM("PATCH /items (deactivate)", Duration.ofSeconds(10), true, false),
+        GET_ITEM("GET /items (by id)", Duration.ofSeconds(5), true, true),
+        GET_STOCK("GET /stock_balance", Duration.ofSeconds(5), true, true),
+        GET_ALL_STOCK("GET /stock_balance (all)", Duration.ofSeconds(15), true, true),
+        GET_LOCATIONS("GET /locations", Duration.ofSeconds(5), true, true),
+        GET_ITEMS("GET /items", Duration.ofSeconds(15), true, true),
+        GET_ITEM_PAGE("GET /items (page)", Duration.ofSeconds(10), true, true),
+        GET_ITEM_CHANGES("GET /items (changed since)", Duration.ofSeconds(15), true, false),
+        CREATE_TRANSACTION("POST /rpc/create_transaction", Duration.ofSeconds(15), true, false),
+        ISSUE_TRANSACTION("POST /rpc/issue_transactions", Duration.ofSeconds(15), true, false),
+        TRANSACTION_REPORT("GET /transaction_report", Duration.ofSeconds(30), true, false),
+        TRANSACTION_LINES("GET /transaction_report (by recorded_at)", Duration.ofSeconds(30), true, false),
+        MOVEMENT_SUMMARY("GET /movement_*_report", Duration.ofSeconds(30), true, false),
+        GET_WEEK_START_DAY("GET /inventory_settings", Duration.ofSeconds(5), true, true),
+        SET_WEEK_START_DAY("POST /rpc/set_week_start_day", Duration.ofSeconds(60), true, false),
+        COUNT_ROWS("HEAD (count)", Duration.ofSeconds(15), true, false);
+
+        private final String endpoint;
+        private final Duration deadline;
+        private final boolean retryable;
+        private final boolean hedgeable;
+
+        Operation(String endpoint, Duration deadline, boolean retryable, boolean hedgeable) {
+            this.endpoint = endpoint;
+            this.deadline = deadline;
+            this.retryable = retryable;
+            this.hedgeable = hedgeable;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public Duration getDeadline() {
+            return deadline;
+        }
+
+        public boolean isRetryable() {
+            return retryable;
+        }
+
+        public boolean isHedgeable() {
+            return hedgeable;
+        }
+    }
+
+    private static RequestMetrics instance;
+
+    private final EndpointStats[] stats;
+    private ScheduledExecutorService logScheduler;
+    private ScheduledFuture<?> logTask;
+
+    private RequestMetrics() {
+        Operation[] operations = Operation.values();
+        stats = new EndpointStats[operations.length];
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (Operation operation : operations) {
+            stats[operation.ordinal()] = new EndpointStats(operation);
+            try {
+                server.registerMBean(stats[operation.ordinal()],
+                    new ObjectName("com.inventory:type=SupabaseRequests,operation=" + operation.name()));
+            } catch (JMException e) {
+                logger.warn("Could not register JMX metrics for {}", operation, e);
+            }
+        }
+    }
+
+    public static synchronized RequestMetrics getInstance() {
+        if (instance == null) {
+            instance = new RequestMetrics();
+        }
+        return instance;
+    }
+
+    public EndpointStats get(Operation operation) {
+        return stats[operation.ordinal()];
+    }
+
+    public List<EndpointStats> getAll() {
+        return List.of(stats);
+    }
+
+    public void reset() {
+        for (EndpointStats endpointStats : stats) {
+            endpointStats.reset();
+        }
+    }
+
+    /**
+     * Wraps {@code handler} so the request is recorded once its response body has been fully
+     * received (or has failed); 4xx/5xx responses count as errors.
+     */
+    <T> MeteredHandler<T> meter(Operation operation, long bytesSent, HttpResponse.BodyHandler<T> handler) {
+        return new MeteredHandler<>(stats[operation.ordinal()], System.nanoTime(), bytesSent, handler);
+    }
+
+    /**
+     * Logs a one-line summary per used operation every {@code interval}; zero or negative turns it off.
+     */
+    public synchronized void startLogging(Duration interval) {
+        if (logTask != null) {
+            logTask.cancel(false);
+            logTask = null;
+        }
+        if (interval.isZero() || interval.isNegative()) {
+            return;
+        }
+        if (logScheduler == null) {
+            logScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "request-metrics-log");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        logTask = logScheduler.scheduleAtFixedRate(this::logSummary, interval.toMillis(), interval.toMillis(),
+            TimeUnit.MILLISECONDS);
+    }
+
+    private void logSummary() {
+        for (EndpointStats endpointStats : stats) {
+            if (endpointStats.getCount() > 0) {
+                logger.info("{} {}: n={} err={} p50={}ms p99={}ms max={}ms sent={}B received={}B",
+                    endpointStats.getOperation(), endpointStats.getEndpoint(), endpointStats.getCount(),
+                    endpointStats.getErrorCount(), endpointStats.getP50Millis(), endpointStats.getP99Millis(),
+                    endpointStats.getMaxMillis(), endpointStats.getBytesSent(), endpointStats.getBytesReceived());
+            }
+        }
+    }
+
+    static final class MeteredHandler<T> implements HttpResponse.BodyHandler<T> {
+        private final EndpointStats stats;
+        private final long startNanos;
+        private final long bytesSent;
+        private final HttpResponse.BodyHandler<T> delegate;
+        private volatile boolean responded;
+
+        private MeteredHandler(EndpointStats stats, long startNanos, long bytesSent, HttpResponse.BodyHandler<T> delegate) {
+            this.stats = stats;
+            this.startNanos = startNanos;
+            this.bytesSent = bytesSent;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public HttpResponse.BodySubscriber<T> apply(HttpResponse.ResponseInfo responseInfo) {
+            responded = true;
+            return new MeteredSubscriber<>(delegate.apply(responseInfo), stats, startNanos, bytesSent,
+                responseInfo.statusCode() >= 400);
+        }
+
+        /**
+         * Records a request that failed before a response arrived (connect error, timeout, interrupt);
+         * once a response has started, its body subscriber records the outcome instead.
+         */
+        void recordFailure() {
+            if (!responded) {
+                stats.record(System.nanoTime() - startNanos, bytesSent, 0, true);
+            }
+        }
+    }
+
+    // Counts body bytes on their way to the real subscriber and records the request when the body ends
+    private static final class MeteredSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+        private final HttpResponse.BodySubscriber<T> delegate;
+        private final EndpointStats stats;
+        private final long startNanos;
+        private final long bytesSent;
+        private final boolean failed;
+        private long bytesReceived;
+
+        MeteredSubscriber(HttpResponse.BodySubscriber<T> delegate, EndpointStats stats, long startNanos,
+                          long bytesSent, boolean failed) {
+            this.delegate = delegate;
+            this.stats = stats;
+            this.startNanos = startNanos;
+            this.bytesSent = bytesSent;
+            this.failed = failed;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            delegate.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            for (int i = 0; i < buffers.size(); i++) {
+                bytesReceived += buffers.get(i).remaining();
+            }
+            delegate.onNext(buffers);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            stats.record(System.nanoTime() - startNanos, bytesSent, bytesReceived, true);
+            delegate.onError(error);
+        }
+
+        @Override
+        public void onComplete() {
+            stats.record(System.nanoTime() - startNanos, bytesSent, bytesReceived, failed);
+            delegate.onComplete();
+        }
+    }
+}
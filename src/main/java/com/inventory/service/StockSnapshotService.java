@@ -0,0 +1,136 @@
+package com.inventory.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory snapshot of stock_balance, refreshed in the background.
+ * Reads never touch the network; the snapshot is at most {@code maxAge} old
+ * unless Supabase is unreachable, in which case the last good copy is kept.
+ */
+public class StockSnapshotService implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(StockSnapshotService.class);
+
+    private final SupabaseService supabaseService;
+    private final Duration maxAge;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+
+    private volatile Map<UUID, Integer> balances = new ConcurrentHashMap<>();
+    private volatile long lastRefreshNanos;
+    private volatile Runnable onRefresh = () -> { };
+    private volatile Consumer<Map<UUID, Integer>> onChange = _ -> { };
+    private ScheduledFuture<?> refreshTask;
+
+    public StockSnapshotService(SupabaseService supabaseService, Duration maxAge) {
+        this.supabaseService = supabaseService;
+        this.maxAge = maxAge;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts periodic refreshes; the first one runs immediately.
+     */
+    public synchronized void start() {
+        if (refreshTask == null) {
+            refreshTask = scheduler.scheduleWithFixedDelay(this::refresh, 0, maxAge.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Called on the refresh thread after every successful reload.
+     */
+    public void setOnRefresh(Runnable onRefresh) {
+        this.onRefresh = onRefresh == null ? () -> { } : onRefresh;
+    }
+
+    /**
+     * Called with the balances that differ from before: on the refresh thread after a reload, or
+     * on the caller's thread after {@link #update}.
+     */
+    public void setOnChange(Consumer<Map<UUID, Integer>> onChange) {
+        this.onChange = onChange == null ? _ -> { } : onChange;
+    }
+
+    /**
+     * Completes on the refresh thread once the first reload has succeeded. Until then every item
+     * reads as 0, which cannot be told apart from an item that really has no stock.
+     */
+    public CompletableFuture<Void> whenLoaded() {
+        return loaded.copy();
+    }
+
+    public int getStock(UUID itemId) {
+        Integer quantity = balances.get(itemId);
+        return quantity == null ? 0 : quantity;
+    }
+
+    /**
+     * Applies balances the server just reported (e.g. after an issue) without waiting for the next refresh.
+     */
+    public void update(Map<UUID, Integer> latest) {
+        balances.putAll(latest);
+        onChange.accept(latest);
+    }
+
+    public boolean isStale() {
+        return System.nanoTime() - lastRefreshNanos > maxAge.toNanos();
+    }
+
+    /**
+     * Schedules an out-of-band reload, e.g. right after a local transaction.
+     */
+    public void refreshSoon() {
+        scheduler.execute(this::refresh);
+    }
+
+    private void refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Map<UUID, Integer> previous = balances;
+            Map<UUID, Integer> latest = new ConcurrentHashMap<>(supabaseService.getAllStockBalances());
+            balances = latest;
+            lastRefreshNanos = System.nanoTime();
+            Map<UUID, Integer> changed = new HashMap<>();
+            latest.forEach((itemId, quantity) -> {
+                if (!quantity.equals(previous.get(itemId))) {
+                    changed.put(itemId, quantity);
+                }
+            });
+            previous.keySet().stream().filter(itemId -> !latest.containsKey(itemId)).forEach(itemId -> changed.put(itemId, 0));
+            if (!changed.isEmpty()) {
+                onChange.accept(changed);
+            }
+            loaded.complete(null);
+            onRefresh.run();
+        } catch (Exception e) {
+            logger.warn("Stock snapshot refresh failed, keeping previous snapshot", e);
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
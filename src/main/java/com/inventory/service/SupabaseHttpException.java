@@ -0,0 +1,36 @@
+package com.inventory.service;
+
+/**
+ * A PostgREST call that reached the server but came back with an unexpected status.
+ */
+public class SupabaseHttpException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    public SupabaseHttpException(String message, int statusCode) {
+        super(message + " (HTTP " + statusCode + ")");
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    // Timeouts, throttling and server-side failures are worth another attempt; other 4xx are not
+    public boolean isRetryable() {
+        return statusCode == 408 || statusCode == 429 || statusCode >= 500;
+    }
+
+    /**
+     * Finds the HTTP failure behind a wrapped exception, or null if the call never got a response.
+     */
+    public static SupabaseHttpException find(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SupabaseHttpException httpException) {
+                return httpException;
+            }
+        }
+        return null;
+    }
+}
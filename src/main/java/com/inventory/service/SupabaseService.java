@@ -1,33 +1,280 @@
 package com.inventory.service;
 
 import com.inventory.model.Item;
+import com.inventory.model.Location;
 import com.inventory.model.Transaction;
+import com.inventory.model.TransactionLine;
+import com.inventory.service.RequestMetrics.Operation;
+import com.inventory.util.ConfigManager;
 import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import javax.json.stream.JsonParser;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SequencedMap;
+import java.util.StringJoiner;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class SupabaseService {
 
+    private static final Logger logger = LoggerFactory.getLogger(SupabaseService.class);
+
+    private static final int STOCK_PAGE_SIZE = 10000;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_BASE_DELAY_MS = 200;
+    private static final long RETRY_MAX_DELAY_MS = 2_000;
+    private static final long HEDGE_MIN_SAMPLES = 20;
+    private static final long HEDGE_DEFAULT_DELAY_MS = 500;
+    private static final long HEDGE_MIN_DELAY_MS = 50;
+    public static final int ITEM_PAGE_SIZE = 1000;
+    public static final int REPORT_PAGE_SIZE = 2000;
+    private static final String REPORT_COLUMNS =
+        "line_id,id,tx_date,created_at,tx_type,reference,item_id,item_code,item_name,qty,condition_status,unit_price,notes";
+    private static final String VALUATION_COLUMNS = "line_id,recorded_at,tx_type,item_id,item_code,item_name,qty,unit_price";
+    private static final String SUMMARY_COLUMNS =
+        "period_start,item_id,item_code,item_name,in_qty,out_qty,disposition_qty,adjust_qty,in_value,out_value,disposition_value";
+
+    // Blocking HTTP calls are cheap on virtual threads, so each async call simply gets its own
+    private static final ExecutorService ASYNC_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private static SupabaseService instance;
+
     private final HttpClient httpClient;
+    private final RequestMetrics metrics = RequestMetrics.getInstance();
+    private final CircuitBreaker circuitBreaker;
     private final String baseUrl;
     private final String apiKey;
+    private volatile TransactionJournal transactionJournal;
 
     public SupabaseService(String baseUrl, String apiKey) {
-        this.httpClient = HttpClient.newHttpClient();
+        this(baseUrl, apiKey, SupabaseTransport.getInstance().getHttpClient(),
+            SupabaseTransport.getInstance().getCircuitBreaker());
+    }
+
+    public SupabaseService(String baseUrl, String apiKey, HttpClient httpClient) {
+        this(baseUrl, apiKey, httpClient, new CircuitBreaker(5, Duration.ofSeconds(15)));
+    }
+
+    public SupabaseService(String baseUrl, String apiKey, HttpClient httpClient, CircuitBreaker circuitBreaker) {
+        this.httpClient = httpClient;
+        this.circuitBreaker = circuitBreaker;
         this.baseUrl = baseUrl;
         this.apiKey = apiKey;
     }
 
+    /**
+     * Shared service for the configured project; rebuilt only when the URL or key in settings changes.
+     */
+    public static synchronized SupabaseService getInstance() {
+        String url = ConfigManager.getSupabaseUrl();
+        String key = ConfigManager.getSupabaseApiKey();
+        if (instance == null || !instance.baseUrl.equals(url) || !instance.apiKey.equals(key)) {
+            instance = new SupabaseService(url, key);
+        }
+        return instance;
+    }
+
+    // Common headers and the per-request deadline for every PostgREST call
+    private HttpRequest.Builder newRequest(String endpoint) {
+        return HttpRequest.newBuilder()
+            .uri(URI.create(endpoint))
+            .header("apikey", apiKey)
+            .header("Authorization", "Bearer " + apiKey)
+            .header("Accept-Encoding", ContentDecoding.ACCEPT_ENCODING)
+            .timeout(SupabaseTransport.REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Every request goes through here. It is sent with its operation's deadline, refused while the
+     * circuit breaker is open, retried with jittered exponential backoff on transport errors and
+     * 408/429/5xx when the operation is retryable, optionally hedged, and timed per attempt.
+     * Compressed bodies are inflated below the metering, so byte counts are what crossed the wire.
+     */
+    private <T> HttpResponse<T> send(Operation operation, HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        HttpResponse.BodyHandler<T> decoding = ContentDecoding.decoding(request, handler);
+        HttpRequest timed = HttpRequest.newBuilder(request, (_, __) -> true)
+            .timeout(operation.getDeadline())
+            .build();
+        boolean hedged = operation.isHedgeable() && ConfigManager.isHedgedReadsEnabled();
+        int attempt = 1;
+        while (true) {
+            boolean trial = circuitBreaker.acquire();
+            HttpResponse<T> response = null;
+            try {
+                response = hedged ? sendHedged(operation, timed, decoding) : sendOnce(operation, timed, decoding);
+            } catch (IOException e) {
+                trial = false;
+                circuitBreaker.recordFailure();
+                if (!operation.isRetryable() || attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                logger.debug("{} failed ({}), retrying", operation, e.getMessage());
+                backOff(attempt++);
+                continue;
+            } finally {
+                if (trial && response == null) {
+                    // Interrupted or failed before the server gave a verdict: let the next call be the trial
+                    circuitBreaker.releaseTrial();
+                }
+            }
+            int status = response.statusCode();
+            if (status >= 500) {
+                circuitBreaker.recordFailure();
+            } else {
+                circuitBreaker.recordSuccess();
+            }
+            if ((status >= 500 || status == 408 || status == 429) && operation.isRetryable() && attempt < MAX_ATTEMPTS) {
+                logger.debug("{} returned HTTP {}, retrying", operation, status);
+                discard(response);
+                backOff(attempt++);
+                continue;
+            }
+            return response;
+        }
+    }
+
+    private <T> HttpResponse<T> sendOnce(Operation operation, HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        RequestMetrics.MeteredHandler<T> metered = metrics.meter(operation, bytesSent(request), handler);
+        try {
+            return httpClient.send(request, metered);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            metered.recordFailure();
+            throw e;
+        }
+    }
+
+    // Sends a second copy if the first has not answered within the operation's usual p95, and takes whichever succeeds first
+    private <T> HttpResponse<T> sendHedged(Operation operation, HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        AtomicInteger launched = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        List<CompletableFuture<HttpResponse<T>>> attempts = new ArrayList<>(2);
+        try {
+            for (int copy = 0; copy < 2 && !result.isDone(); copy++) {
+                RequestMetrics.MeteredHandler<T> metered = metrics.meter(operation, bytesSent(request), handler);
+                launched.incrementAndGet();
+                CompletableFuture<HttpResponse<T>> attempt = httpClient.sendAsync(request, metered);
+                attempts.add(attempt);
+                attempt.whenComplete((response, error) -> {
+                    if (error == null) {
+                        if (!result.complete(response)) {
+                            discard(response);
+                        }
+                    } else if (!(unwrap(error) instanceof CancellationException)) {
+                        // Cancelled losers are not failures; otherwise fail once every copy sent so far has failed
+                        metered.recordFailure();
+                        if (failures.incrementAndGet() >= launched.get()) {
+                            result.completeExceptionally(error);
+                        }
+                    }
+                });
+                if (copy == 0) {
+                    try {
+                        return result.get(hedgeDelayMillis(operation), TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException e) {
+                        logger.debug("{} slow, sending hedged request", operation);
+                    }
+                }
+            }
+            return result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e.getCause());
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException(cause);
+        } finally {
+            attempts.forEach(attempt -> attempt.cancel(true));
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private long hedgeDelayMillis(Operation operation) {
+        EndpointStats stats = metrics.get(operation);
+        if (stats.getCount() < HEDGE_MIN_SAMPLES) {
+            return HEDGE_DEFAULT_DELAY_MS;
+        }
+        return Math.max(HEDGE_MIN_DELAY_MS, stats.getLatencyMicrosAtQuantile(0.95) / 1_000);
+    }
+
+    private static long bytesSent(HttpRequest request) {
+        return Math.max(request.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L), 0);
+    }
+
+    // Full jitter: anywhere between zero and the exponential ceiling, so retrying clients spread out
+    private static void backOff(int attempt) throws InterruptedException {
+        long ceiling = Math.min(RETRY_BASE_DELAY_MS << (attempt - 1), RETRY_MAX_DELAY_MS);
+        Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    // A response we are not going to use still holds its connection until the body is closed
+    private static void discard(HttpResponse<?> response) {
+        if (response.body() instanceof InputStream body) {
+            try {
+                body.close();
+            } catch (IOException e) {
+                // nothing left to release
+            }
+        }
+    }
+
     public void createItem(Item item) {
         try {
-            String endpoint = baseUrl + "/rest/v1/items";
+            // The id is generated client-side; ignoring a duplicate id makes a retried insert harmless
+            String endpoint = baseUrl + "/rest/v1/items?on_conflict=id";
             String requestBody = Json.createObjectBuilder()
+                .add("id", item.getId().toString())
                 .add("item_code", item.getItemCode())
                 .add("name", item.getName())
                 .add("category", item.getCategory())
@@ -37,14 +284,13 @@ public class SupabaseService {
                 .build()
                 .toString();
 
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(endpoint))
+            HttpRequest request = newRequest(endpoint)
                 .header("Content-Type", "application/json")
-                .header("apikey", apiKey)
+                .header("Prefer", "resolution=ignore-duplicates")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = send(Operation.CREATE_ITEM, request, HttpResponse.BodyHandlers.ofString());
             if (response.statusCode() != 201) {
                 throw new RuntimeException("Failed to create item: " + response.body());
             }
@@ -65,14 +311,12 @@ public class SupabaseService {
                 .build()
                 .toString();
 
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(endpoint))
+            HttpRequest request = newRequest(endpoint)
                 .header("Content-Type", "application/json")
-                .header("apikey", apiKey)
                 .method("PATCH", HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = send(Operation.UPDATE_ITEM, request, HttpResponse.BodyHandlers.ofString());
             if (response.statusCode() != 204) {
                 throw new RuntimeException("Failed to update item: " + response.body());
             }
@@ -81,35 +325,1202 @@ public class SupabaseService {
         }
     }
 
+    // Items are soft-deleted so other clients can pick the removal up through delta sync
     public void deleteItem(UUID itemId) {
-        // Implementation for deleting an item in Supabase
+        try {
+            String endpoint = baseUrl + "/rest/v1/items?id=eq." + itemId;
+            String requestBody = Json.createObjectBuilder()
+                .add("is_active", false)
+                .build()
+                .toString();
+
+            HttpRequest request = newRequest(endpoint)
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(requestBody))
+                .build();
+
+            HttpResponse<String> response = send(Operation.DELETE_ITEM, request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 204) {
+                throw new RuntimeException("Failed to delete item: " + response.body());
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Error deleting item", e);
+        }
     }
 
     public int getCurrentStock(UUID itemId) {
-        // Implementation for fetching current stock from Supabase
-        return 0;
+        try {
+            String endpoint = baseUrl + "/rest/v1/stock_balance?select=quantity&item_id=eq." + itemId;
+
+            HttpRequest request = newRequest(endpoint)
+                .GET()
+                .build();
+
+            HttpResponse<String> response = send(Operation.GET_STOCK, request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new RuntimeException("Failed to fetch stock: " + response.body());
+            }
+            JsonArray rows = Json.createReader(new StringReader(response.body())).readArray();
+            return rows.isEmpty() ? 0 : rows.getJsonObject(0).getInt("quantity");
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching current stock", e);
+        }
+    }
+
+    /**
+     * Fetches the balances of several items in a single request; items without a row are absent.
+     */
+    public Map<UUID, Integer> getCurrentStock(Collection<UUID> itemIds) {
+        Map<UUID, Integer> balances = new HashMap<>();
+        if (itemIds.isEmpty()) {
+            return balances;
+        }
+        try {
+            StringJoiner ids = new StringJoiner(",", "(", ")");
+            itemIds.forEach(id -> ids.add(id.toString()));
+            String endpoint = baseUrl + "/rest/v1/stock_balance?select=item_id,quantity&item_id=in." + ids;
+
+            HttpRequest request = newRequest(endpoint)
+                .GET()
+                .build();
+
+            HttpResponse<InputStream> response = send(Operation.GET_STOCK, request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != 200) {
+                    throw new RuntimeException("Failed to fetch stock: "
+                        + new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                }
+                readStockBalances(body, balances);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching current stock", e);
+        }
+        return balances;
     }
 
-    public List<Item> getAllItems() throws Exception {
-        // Updated to return List<Item> instead of List<String>
-        return new ArrayList<>();
+    /**
+     * Fetches every stock_balance row, page by page, and streams them into a map keyed by item id.
+     * Pages are sized so a typical catalogue comes back in a single round trip.
+     */
+    public Map<UUID, Integer> getAllStockBalances() {
+        Map<UUID, Integer> balances = new HashMap<>();
+        streamStockBalances(STOCK_PAGE_SIZE, balances::putAll);
+        return balances;
     }
 
+    /**
+     * Streams every stock_balance row in item_id order, one page (in that order) at a time.
+     * Pages are continued by keyset on item_id: the view sums the shards per item, and the filter
+     * reaches the shard table's primary key, so a page only aggregates its own items. An item
+     * added mid-scan cannot shift a later page and make it skip a row, as an offset would.
+     *
+     * @return the number of rows delivered
+     */
+    public int streamStockBalances(int pageSize, Consumer<SequencedMap<UUID, Integer>> pageConsumer) {
+        return streamStockBalances(pageSize, null, null, pageConsumer);
+    }
+
+    /**
+     * Like {@link #streamStockBalances(int, Consumer)}, but only for item ids after
+     * {@code afterId} and up to and including {@code throughId} (either end open when null),
+     * e.g. the balances belonging to one page of {@link #streamItems}.
+     */
+    public int streamStockBalances(int pageSize, UUID afterId, UUID throughId,
+                                   Consumer<SequencedMap<UUID, Integer>> pageConsumer) {
+        int total = 0;
+        UUID lastId = afterId;
+        try {
+            while (true) {
+                String endpoint = baseUrl + "/rest/v1/stock_balance?select=item_id,quantity&order=item_id"
+                    + "&limit=" + pageSize + (lastId == null ? "" : "&item_id=gt." + lastId)
+                    + (throughId == null ? "" : "&item_id=lte." + throughId);
+
+                HttpRequest request = newRequest(endpoint)
+                    .GET()
+                    .build();
+
+                HttpResponse<InputStream> response = send(Operation.GET_ALL_STOCK, request, HttpResponse.BodyHandlers.ofInputStream());
+                SequencedMap<UUID, Integer> page = new LinkedHashMap<>();
+                int received;
+                try (InputStream body = response.body()) {
+                    if (response.statusCode() != 200) {
+                        throw new RuntimeException("Failed to fetch stock balances: "
+                            + new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                    }
+                    received = readStockBalances(body, page);
+                }
+                if (page.isEmpty()) {
+                    break;
+                }
+                pageConsumer.accept(page);
+                total += page.size();
+                if (received < pageSize) {
+                    break;
+                }
+                lastId = page.lastEntry().getKey();
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching stock balances", e);
+        }
+        return total;
+    }
+
+    // Streams [{"item_id": "...", "quantity": n}, ...] without building a JSON tree
+    private static int readStockBalances(InputStream body, Map<UUID, Integer> balances) {
+        int rows = 0;
+        try (JsonParser parser = Json.createParser(body)) {
+            String key = null;
+            UUID itemId = null;
+            int quantity = 0;
+            while (parser.hasNext()) {
+                JsonParser.Event event = parser.next();
+                switch (event) {
+                    case START_OBJECT -> {
+                        itemId = null;
+                        quantity = 0;
+                    }
+                    case KEY_NAME -> key = parser.getString();
+                    case VALUE_STRING -> {
+                        if ("item_id".equals(key)) {
+                            itemId = UUID.fromString(parser.getString());
+                        }
+                    }
+                    case VALUE_NUMBER -> {
+                        if ("quantity".equals(key)) {
+                            quantity = parser.getInt();
+                        }
+                    }
+                    case END_OBJECT -> {
+                        if (itemId != null) {
+                            balances.put(itemId, quantity);
+                        }
+                        rows++;
+                    }
+                    default -> { }
+                }
+            }
+        }
+        return rows;
+    }
+
+    public List<Item> getAllItems(ItemProjection projection) throws Exception {
+        List<Item> items = new ArrayList<>();
+        streamItems(ITEM_PAGE_SIZE, projection, items::addAll);
+        return items;
+    }
+
+    public long countActiveItems() {
+        return countRows("items?is_active=eq.true");
+    }
+
+    /**
+     * Loads active items in pages of {@code pageSize} using keyset pagination on id, handing each
+     * page to {@code pageConsumer} as soon as it is parsed. Only one page is held in memory at a time.
+     * Fields outside {@code projection} are left unset on the returned items.
+     *
+     * @return the total number of items delivered
+     */
+    public int streamItems(int pageSize, ItemProjection projection, Consumer<List<Item>> pageConsumer) {
+        return streamItems(pageSize, projection, null, pageConsumer);
+    }
+
+    /**
+     * Like {@link #streamItems(int, ItemProjection, Consumer)}, but starts after the item with id
+     * {@code afterId} (from the beginning when null), e.g. to continue from an already loaded page.
+     */
+    public int streamItems(int pageSize, ItemProjection projection, UUID afterId, Consumer<List<Item>> pageConsumer) {
+        return streamItems(pageSize, projection, afterId, "", pageConsumer);
+    }
+
+    /**
+     * Streams the active items that have a minimum stock set, i.e. the only ones that can ever
+     * need reordering.
+     *
+     * @return the number of items delivered
+     */
+    public int streamItemsWithMinStock(Consumer<List<Item>> pageConsumer) {
+        return streamItems(ITEM_PAGE_SIZE, ItemProjection.REORDER, null, "&min_stock=gt.0", pageConsumer);
+    }
+
+    private int streamItems(int pageSize, ItemProjection projection, UUID afterId, String filter, Consumer<List<Item>> pageConsumer) {
+        int total = 0;
+        UUID lastId = afterId;
+        try {
+            while (true) {
+                String endpoint = baseUrl + "/rest/v1/items?select=" + projection.columns
+                    + "&is_active=eq.true" + filter + "&order=id.asc&limit=" + pageSize
+                    + (lastId == null ? "" : "&id=gt." + lastId);
+
+                HttpRequest request = newRequest(endpoint)
+                    .GET()
+                    .build();
+
+                HttpResponse<InputStream> response = send(Operation.GET_ITEMS, request, HttpResponse.BodyHandlers.ofInputStream());
+                List<Item> page;
+                try (InputStream body = response.body()) {
+                    if (response.statusCode() != 200) {
+                        throw new RuntimeException("Failed to fetch items: "
+                            + new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                    }
+                    page = readItems(body);
+                }
+                if (page.isEmpty()) {
+                    break;
+                }
+                pageConsumer.accept(page);
+                total += page.size();
+                if (page.size() < pageSize) {
+                    break;
+                }
+                lastId = page.get(page.size() - 1).getId();
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching items", e);
+        }
+        return total;
+    }
+
+    /**
+     * Fetches one window of active items in id order, optionally narrowed to those whose code,
+     * name or category contains {@code search} (case-insensitive). Counting every match is a full
+     * scan on the server, so the exact number of matching items is only asked for with the first
+     * window ({@code offset} 0); later windows report no more than the rows seen so far.
+     */
+    public ItemPage getItemsPage(ItemProjection projection, String search, long offset, int limit) {
+        try {
+            StringBuilder endpoint = new StringBuilder(baseUrl)
+                .append("/rest/v1/items?select=").append(projection.columns)
+                .append("&is_active=eq.true&order=id.asc")
+                .append("&offset=").append(offset).append("&limit=").append(limit);
+            if (search != null && !search.isBlank()) {
+                String pattern = ilikePattern(search.trim());
+                endpoint.append("&or=").append(URLEncoder.encode(
+                    "(item_code.ilike." + pattern + ",name.ilike." + pattern + ",category.ilike." + pattern + ")",
+                    StandardCharsets.UTF_8));
+            }
+
+            HttpRequest.Builder builder = newRequest(endpoint.toString());
+            if (offset == 0) {
+                builder.header("Prefer", "count=exact");
+            }
+            HttpRequest request = builder.GET().build();
+
+            HttpResponse<InputStream> response = send(Operation.GET_ITEM_PAGE, request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != 200 && response.statusCode() != 206) {
+                    throw new SupabaseHttpException("Failed to fetch items: "
+                        + new String(body.readAllBytes(), StandardCharsets.UTF_8), response.statusCode());
+                }
+                List<Item> items = readItems(body);
+                // Content-Range: 200-399/1048576 (*/0 when nothing matches, 200-399/* when not counted)
+                String contentRange = response.headers().firstValue("Content-Range").orElse("*/0");
+                String total = contentRange.substring(contentRange.indexOf('/') + 1);
+                return new ItemPage(items, "*".equals(total) ? offset + items.size() : Long.parseLong(total));
+            }
+        } catch (SupabaseHttpException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching items page", e);
+        }
+    }
+
+    // "*text*" as a quoted PostgREST value, so commas and parentheses in the search text stay literal.
+    // % and _ are escaped for LIKE; PostgREST turns every * into % and has no escape for it, so a
+    // literal * matches any single character instead.
+    private static String ilikePattern(String text) {
+        String like = text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_").replace('*', '_');
+        return "\"*" + like.replace("\\", "\\\\").replace("\"", "\\\"") + "*\"";
+    }
+
+    /**
+     * Fetches every item, active or not, whose updated_at is later than {@code since}
+     * (or all items when {@code since} is null), oldest change first. Only the
+     * {@link ItemProjection#TABLE} columns are fetched.
+     */
+    public List<Item> getItemsChangedSince(LocalDateTime since) {
+        List<Item> changes = new ArrayList<>();
+        Item last = null;
+        try {
+            while (true) {
+                StringBuilder endpoint = new StringBuilder(baseUrl)
+                    .append("/rest/v1/items?select=").append(ItemProjection.TABLE.columns)
+                    .append("&order=updated_at.asc,id.asc")
+                    .append("&limit=").append(ITEM_PAGE_SIZE);
+                // Keyset on (updated_at, id): an item edited mid-scan moves past the end instead of
+                // shifting the rows after it into a page already read
+                if (last != null) {
+                    String updatedAt = timestampValue(last.getUpdatedAt());
+                    endpoint.append("&or=").append(URLEncoder.encode("(updated_at.gt." + updatedAt
+                        + ",and(updated_at.eq." + updatedAt + ",id.gt." + last.getId() + "))",
+                        StandardCharsets.UTF_8));
+                } else if (since != null) {
+                    endpoint.append("&updated_at=gt.").append(URLEncoder.encode(timestampValue(since), StandardCharsets.UTF_8));
+                }
+
+                HttpRequest request = newRequest(endpoint.toString())
+                    .GET()
+                    .build();
+
+                HttpResponse<InputStream> response = send(Operation.GET_ITEM_CHANGES, request, HttpResponse.BodyHandlers.ofInputStream());
+                List<Item> page;
+                try (InputStream body = response.body()) {
+                    if (response.statusCode() != 200) {
+                        throw new RuntimeException("Failed to fetch item changes: "
+                            + new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                    }
+                    page = readItems(body);
+                }
+                changes.addAll(page);
+                if (page.size() < ITEM_PAGE_SIZE) {
+                    break;
+                }
+                last = page.get(page.size() - 1);
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching item changes", e);
+        }
+        return changes;
+    }
+
+    // updated_at is a timestamptz; local times are read back in the system zone (see parseTimestamp)
+    private static String timestampValue(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toOffsetDateTime().toString();
+    }
+
+    // Streams an array of item rows straight into Item objects
+    static List<Item> readItems(InputStream body) {
+        List<Item> items = new ArrayList<>();
+        try (JsonParser parser = Json.createParser(body)) {
+            String key = null;
+            Item item = null;
+            while (parser.hasNext()) {
+                JsonParser.Event event = parser.next();
+                switch (event) {
+                    case START_OBJECT -> item = new Item();
+                    case KEY_NAME -> key = parser.getString();
+                    case VALUE_STRING -> applyItemField(item, key, parser.getString());
+                    case VALUE_NUMBER -> {
+                        if ("min_stock".equals(key)) {
+                            item.setMinStock(parser.getInt());
+                        }
+                    }
+                    case VALUE_TRUE, VALUE_FALSE -> {
+                        boolean value = event == JsonParser.Event.VALUE_TRUE;
+                        if ("is_palindrome".equals(key)) {
+                            item.setPalindrome(value);
+                        } else if ("is_active".equals(key)) {
+                            item.setActive(value);
+                        }
+                    }
+                    case END_OBJECT -> items.add(item);
+                    default -> { }
+                }
+            }
+        }
+        return items;
+    }
+
+    // Same mapping as readItems, for a row that arrives as an already-parsed object (e.g. from Realtime)
+    static Item readItem(JsonObject row) {
+        Item item = new Item();
+        row.forEach((key, value) -> {
+            switch (value.getValueType()) {
+                case STRING -> applyItemField(item, key, ((JsonString) value).getString());
+                case NUMBER -> {
+                    if ("min_stock".equals(key)) {
+                        item.setMinStock(((JsonNumber) value).intValue());
+                    }
+                }
+                case TRUE, FALSE -> {
+                    boolean flag = value == JsonValue.TRUE;
+                    if ("is_palindrome".equals(key)) {
+                        item.setPalindrome(flag);
+                    } else if ("is_active".equals(key)) {
+                        item.setActive(flag);
+                    }
+                }
+                default -> { }
+            }
+        });
+        return item;
+    }
+
+    private static void applyItemField(Item item, String key, String value) {
+        switch (key) {
+            case "id" -> item.setId(UUID.fromString(value));
+            case "item_code" -> item.setItemCode(value);
+            case "name" -> item.setName(value);
+            case "category" -> item.setCategory(value);
+            case "unit" -> item.setUnit(value);
+            case "created_at" -> item.setCreatedAt(parseTimestamp(value));
+            case "updated_at" -> item.setUpdatedAt(parseTimestamp(value));
+            default -> { }
+        }
+    }
+
+    // PostgREST renders timestamp columns as ISO-8601, with an offset only for timestamptz
+    static LocalDateTime parseTimestamp(String value) {
+        TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parse(value);
+        if (parsed.isSupported(ChronoField.OFFSET_SECONDS)) {
+            return OffsetDateTime.from(parsed).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        }
+        return LocalDateTime.from(parsed);
+    }
+
+    /**
+     * Records a transaction. With a journal attached this only appends locally and returns;
+     * the journal delivers it via {@link #sendTransaction} in the background.
+     */
     public void createTransaction(Transaction transaction) {
-        // Implementation for creating a transaction in Supabase
+        TransactionJournal journal = transactionJournal;
+        if (journal != null) {
+            journal.append(transaction);
+        } else {
+            sendTransaction(transaction);
+        }
+    }
+
+    /**
+     * Writes a transaction header and all of its lines in one round trip through the
+     * create_transaction RPC, which inserts them atomically. Ids are generated client-side and
+     * an already-stored transaction is left untouched, so retries are safe.
+     */
+    public void sendTransaction(Transaction transaction) {
+        try {
+            String requestBody = Json.createObjectBuilder()
+                .add("p_tx", TransactionJson.header(transaction))
+                .add("p_lines", TransactionJson.lines(transaction))
+                .build()
+                .toString();
+
+            HttpRequest request = newRequest(baseUrl + "/rest/v1/rpc/create_transaction")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                .build();
+
+            HttpResponse<String> response = send(Operation.CREATE_TRANSACTION, request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200 && response.statusCode() != 204) {
+                throw new SupabaseHttpException("Failed to create transaction: " + response.body(), response.statusCode());
+            }
+        } catch (SupabaseHttpException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error creating transaction", e);
+        }
+    }
+
+    /**
+     * Issues stock (OUT/DISPOSITION) through the issue_transactions RPC, which checks and decrements
+     * every item's balance and stores all the given transactions in the same database transaction.
+     * Nothing is stored when any item is short, so a cart split into an OUT and a DISPOSITION
+     * transaction goes through whole or not at all. Issues bypass the journal because the stock
+     * decision has to be made by the server.
+     */
+    public IssueResult issueTransactions(Collection<Transaction> transactions, boolean allowNegative) {
+        try {
+            JsonArrayBuilder headers = Json.createArrayBuilder();
+            JsonArrayBuilder lines = Json.createArrayBuilder();
+            for (Transaction transaction : transactions) {
+                headers.add(TransactionJson.header(transaction));
+                TransactionJson.lines(transaction).forEach(lines::add);
+            }
+            String requestBody = Json.createObjectBuilder()
+                .add("p_txs", headers)
+                .add("p_lines", lines)
+                .add("p_allow_negative", allowNegative)
+                .build()
+                .toString();
+
+            HttpRequest request = newRequest(baseUrl + "/rest/v1/rpc/issue_transactions")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                .build();
+
+            HttpResponse<String> response = send(Operation.ISSUE_TRANSACTION, request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new SupabaseHttpException("Failed to issue items: " + response.body(), response.statusCode());
+            }
+            return IssueResult.fromJson(Json.createReader(new StringReader(response.body())).readObject());
+        } catch (SupabaseHttpException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error issuing items", e);
+        }
+    }
+
+    public void setTransactionJournal(TransactionJournal transactionJournal) {
+        this.transactionJournal = transactionJournal;
     }
 
     public List<TransactionReportRow> getTransactionReport(LocalDate startDate, LocalDate endDate) {
-        // Implementation for fetching transaction reports from Supabase
-        return new ArrayList<>();
+        List<TransactionReportRow> rows = new ArrayList<>();
+        streamTransactionReport(startDate, endDate, REPORT_PAGE_SIZE, new AtomicBoolean(), rows::addAll);
+        return rows;
     }
 
+    /**
+     * Streams transaction_report rows dated within [startDate, endDate], newest first, in pages
+     * continued by keyset on (tx_date, created_at, line_id). Stops between pages once
+     * {@code cancelled} is set.
+     *
+     * @return the number of rows delivered
+     */
+    public int streamTransactionReport(LocalDate startDate, LocalDate endDate, int pageSize,
+                                       AtomicBoolean cancelled, Consumer<List<TransactionReportRow>> pageConsumer) {
+        int total = 0;
+        TransactionReportRow last = null;
+        Map<String, String> strings = new HashMap<>();
+        try {
+            while (!cancelled.get()) {
+                StringBuilder endpoint = new StringBuilder(baseUrl)
+                    .append("/rest/v1/transaction_report?select=").append(REPORT_COLUMNS)
+                    .append("&tx_date=gte.").append(startDate)
+                    .append("&tx_date=lte.").append(endDate)
+                    .append("&order=tx_date.desc,created_at.desc,line_id.desc")
+                    .append("&limit=").append(pageSize);
+                if (last != null) {
+                    // created_at is NOT NULL (migration 010), so every row can continue the keyset
+                    String date = last.getTxDate().toString();
+                    String createdAt = last.getCreatedAt().toString();
+                    endpoint.append("&or=").append(URLEncoder.encode("(tx_date.lt." + date
+                        + ",and(tx_date.eq." + date + ",created_at.lt." + createdAt + ")"
+                        + ",and(tx_date.eq." + date + ",created_at.eq." + createdAt + ",line_id.lt." + last.getLineId() + "))",
+                        StandardCharsets.UTF_8));
+                }
+
+                HttpRequest request = newRequest(endpoint.toString())
+                    .GET()
+                    .build();
+
+                HttpResponse<InputStream> response = send(Operation.TRANSACTION_REPORT, request, HttpResponse.BodyHandlers.ofInputStream());
+                List<TransactionReportRow> page;
+                try (InputStream body = response.body()) {
+                    if (response.statusCode() != 200) {
+                        throw new RuntimeException("Failed to fetch transaction report: "
+                            + new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                    }
+                    page = readReportRows(body, strings);
+                }
+                if (page.isEmpty() || cancelled.get()) {
+                    break;
+                }
+                pageConsumer.accept(page);
+                total += page.size();
+                if (page.size() < pageSize) {
+                    break;
+                }
+                last = page.get(page.size() - 1);
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching transaction report", e);
+        }
+        return total;
+    }
+
+    /**
+     * Streams transaction lines recorded at or after {@code since} (null for the whole history) in
+     * the order they were recorded, in pages continued by keyset on (recorded_at, line_id).
+     * recorded_at is stamped by the database when the line is stored, so a transaction replayed
+     * from the journal long after it was entered still shows up as new. Rows
+     * carry only what valuation needs: line and item ids, type, quantity, unit price, item code
+     * and name.
+     *
+     * @return the number of rows delivered
+     */
+    public int streamTransactionLines(LocalDateTime since, int pageSize, Consumer<List<TransactionReportRow>> pageConsumer) {
+        int total = 0;
+        TransactionReportRow last = null;
+        Map<String, String> strings = new HashMap<>();
+        try {
+            while (true) {
+                StringBuilder endpoint = new StringBuilder(baseUrl)
+                    .append("/rest/v1/transaction_report?select=").append(VALUATION_COLUMNS)
+                    .append("&order=recorded_at.asc,line_id.asc")
+                    .append("&limit=").append(pageSize);
+                if (last != null) {
+                    String recordedAt = last.getRecordedAt().toString();
+                    endpoint.append("&or=").append(URLEncoder.encode("(recorded_at.gt." + recordedAt
+                        + ",and(recorded_at.eq." + recordedAt + ",line_id.gt." + last.getLineId() + "))",
+                        StandardCharsets.UTF_8));
+                } else if (since != null) {
+                    endpoint.append("&recorded_at=gte.").append(since);
+                }
+
+                HttpRequest request = newRequest(endpoint.toString())
+                    .GET()
+                    .build();
+
+                HttpResponse<InputStream> response = send(Operation.TRANSACTION_LINES, request, HttpResponse.BodyHandlers.ofInputStream());
+                List<TransactionReportRow> page;
+                try (InputStream body = response.body()) {
+                    if (response.statusCode() != 200) {
+                        throw new RuntimeException("Failed to fetch transaction lines: "
+                            + new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                    }
+                    page = readReportRows(body, strings);
+                }
+                if (page.isEmpty()) {
+                    break;
+                }
+                pageConsumer.accept(page);
+                total += page.size();
+                if (page.size() < pageSize) {
+                    break;
+                }
+                last = page.get(page.size() - 1);
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching transaction lines", e);
+        }
+        return total;
+    }
+
+    /**
+     * Streams movement rollups for periods overlapping [startDate, endDate], ordered by period
+     * start and item, in pages continued by keyset on (period_start, item_id). Reads the rollup
+     * tables maintained by the database, so the cost grows with periods x items moved rather
+     * than with transaction lines.
+     *
+     * @return the number of rows delivered
+     */
+    public int streamMovementSummary(SummaryPeriod period, LocalDate startDate, LocalDate endDate, int pageSize,
+                                     AtomicBoolean cancelled, Consumer<List<MovementSummaryRow>> pageConsumer) {
+        // A week overlapping the range starts at most six days before it, whichever day the
+        // database's inventory_settings makes weeks start on
+        LocalDate firstPeriod = period == SummaryPeriod.WEEKLY ? startDate.minusDays(6) : startDate;
+        int total = 0;
+        MovementSummaryRow last = null;
+        Map<String, String> strings = new HashMap<>();
+        try {
+            while (!cancelled.get()) {
+                StringBuilder endpoint = new StringBuilder(baseUrl)
+                    .append("/rest/v1/").append(period.view).append("?select=").append(SUMMARY_COLUMNS)
+                    .append("&period_start=gte.").append(firstPeriod)
+                    .append("&period_start=lte.").append(endDate)
+                    .append("&order=period_start.asc,item_id.asc")
+                    .append("&limit=").append(pageSize);
+                if (last != null) {
+                    String date = last.getPeriodStart().toString();
+                    endpoint.append("&or=").append(URLEncoder.encode("(period_start.gt." + date
+                        + ",and(period_start.eq." + date + ",item_id.gt." + last.getItemId() + "))",
+                        StandardCharsets.UTF_8));
+                }
+
+                HttpRequest request = newRequest(endpoint.toString())
+                    .GET()
+                    .build();
+
+                HttpResponse<InputStream> response = send(Operation.MOVEMENT_SUMMARY, request, HttpResponse.BodyHandlers.ofInputStream());
+                List<MovementSummaryRow> page;
+                try (InputStream body = response.body()) {
+                    if (response.statusCode() != 200) {
+                        throw new RuntimeException("Failed to fetch movement summary: "
+                            + new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                    }
+                    page = readSummaryRows(body, strings);
+                }
+                if (page.isEmpty() || cancelled.get()) {
+                    break;
+                }
+                pageConsumer.accept(page);
+                total += page.size();
+                if (page.size() < pageSize) {
+                    break;
+                }
+                last = page.get(page.size() - 1);
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching movement summary", e);
+        }
+        return total;
+    }
+
+    /**
+     * @return the day weeks start on in the weekly rollup, as stored in inventory_settings
+     */
+    public DayOfWeek getWeekStartDay() {
+        try {
+            HttpRequest request = newRequest(baseUrl + "/rest/v1/inventory_settings?select=week_start_day")
+                .GET()
+                .build();
+
+            HttpResponse<String> response = send(Operation.GET_WEEK_START_DAY, request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new SupabaseHttpException("Failed to fetch week start day: " + response.body(), response.statusCode());
+            }
+            JsonArray rows = Json.createReader(new StringReader(response.body())).readArray();
+            // The row is created with the schema; without it the column default (Monday) applies
+            return rows.isEmpty() ? DayOfWeek.MONDAY : DayOfWeek.of(rows.getJsonObject(0).getInt("week_start_day"));
+        } catch (SupabaseHttpException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching week start day", e);
+        }
+    }
+
+    /**
+     * Changes the day weeks start on for the weekly rollup; the database rebuilds movement_weekly
+     * from the daily rollup.
+     */
+    public void setWeekStartDay(DayOfWeek weekStartDay) {
+        try {
+            String requestBody = Json.createObjectBuilder()
+                .add("p_day", weekStartDay.getValue())
+                .build()
+                .toString();
+
+            HttpRequest request = newRequest(baseUrl + "/rest/v1/rpc/set_week_start_day")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                .build();
+
+            HttpResponse<String> response = send(Operation.SET_WEEK_START_DAY, request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200 && response.statusCode() != 204) {
+                throw new SupabaseHttpException("Failed to set week start day: " + response.body(), response.statusCode());
+            }
+        } catch (SupabaseHttpException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error setting week start day", e);
+        }
+    }
+
+    public long countTransactionReport(LocalDate startDate, LocalDate endDate) {
+        return countRows("transaction_report?tx_date=gte." + startDate + "&tx_date=lte." + endDate);
+    }
+
+    /**
+     * Asks PostgREST for the exact number of rows matching {@code tableAndFilter} without
+     * transferring any of them.
+     */
+    long countRows(String tableAndFilter) {
+        try {
+            HttpRequest request = newRequest(baseUrl + "/rest/v1/" + tableAndFilter)
+                .header("Prefer", "count=exact")
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build();
+
+            HttpResponse<Void> response = send(Operation.COUNT_ROWS, request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200 && response.statusCode() != 206) {
+                throw new SupabaseHttpException("Failed to count " + tableAndFilter, response.statusCode());
+            }
+            // Content-Range: 0-24/3573 (or */0 when empty)
+            String contentRange = response.headers().firstValue("Content-Range").orElse("*/0");
+            String total = contentRange.substring(contentRange.indexOf('/') + 1);
+            return "*".equals(total) ? -1 : Long.parseLong(total);
+        } catch (SupabaseHttpException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error counting " + tableAndFilter, e);
+        }
+    }
+
+    // Streams report rows; repeated item codes/names share one String instance per report
+    private static List<TransactionReportRow> readReportRows(InputStream body, Map<String, String> strings) {
+        List<TransactionReportRow> rows = new ArrayList<>();
+        try (JsonParser parser = Json.createParser(body)) {
+            String key = null;
+            TransactionReportRow row = null;
+            while (parser.hasNext()) {
+                JsonParser.Event event = parser.next();
+                switch (event) {
+                    case START_OBJECT -> row = new TransactionReportRow();
+                    case KEY_NAME -> key = parser.getString();
+                    case VALUE_STRING -> row.applyField(key, parser.getString(), strings);
+                    case VALUE_NUMBER -> {
+                        if ("qty".equals(key)) {
+                            row.qty = parser.getInt();
+                        } else if ("unit_price".equals(key)) {
+                            row.unitPrice = parser.getBigDecimal();
+                        }
+                    }
+                    case END_OBJECT -> rows.add(row);
+                    default -> { }
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static List<MovementSummaryRow> readSummaryRows(InputStream body, Map<String, String> strings) {
+        List<MovementSummaryRow> rows = new ArrayList<>();
+        try (JsonParser parser = Json.createParser(body)) {
+            String key = null;
+            MovementSummaryRow row = null;
+            while (parser.hasNext()) {
+                JsonParser.Event event = parser.next();
+                switch (event) {
+                    case START_OBJECT -> row = new MovementSummaryRow();
+                    case KEY_NAME -> key = parser.getString();
+                    case VALUE_STRING -> row.applyField(key, parser.getString(), strings);
+                    case VALUE_NUMBER -> row.applyNumber(key, parser);
+                    case END_OBJECT -> rows.add(row);
+                    default -> { }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * @return the item with this id, active or not, or null if there is none
+     */
     public Item getItemById(UUID itemId) {
-        // Implementation for fetching an item by ID from Supabase
-        return null;
+        try {
+            HttpRequest request = newRequest(baseUrl + "/rest/v1/items?select=*&id=eq." + itemId)
+                .GET()
+                .build();
+
+            HttpResponse<InputStream> response = send(Operation.GET_ITEM, request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != 200) {
+                    throw new RuntimeException("Failed to fetch item: "
+                        + new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                }
+                List<Item> items = readItems(body);
+                return items.isEmpty() ? null : items.get(0);
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching item", e);
+        }
     }
 
+    /**
+     * @return every stock location, ordered by name
+     */
+    public List<Location> getLocations() {
+        try {
+            HttpRequest request = newRequest(baseUrl + "/rest/v1/locations?select=id,name&order=name.asc")
+                .GET()
+                .build();
+
+            HttpResponse<InputStream> response = send(Operation.GET_LOCATIONS, request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != 200) {
+                    throw new RuntimeException("Failed to fetch locations: "
+                        + new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                }
+                List<Location> locations = new ArrayList<>();
+                try (JsonParser parser = Json.createParser(body)) {
+                    String key = null;
+                    Location location = null;
+                    while (parser.hasNext()) {
+                        switch (parser.next()) {
+                            case START_OBJECT -> location = new Location();
+                            case KEY_NAME -> key = parser.getString();
+                            case VALUE_STRING -> {
+                                if ("id".equals(key)) {
+                                    location.setId(UUID.fromString(parser.getString()));
+                                } else if ("name".equals(key)) {
+                                    location.setName(parser.getString());
+                                }
+                            }
+                            case END_OBJECT -> locations.add(location);
+                            default -> { }
+                        }
+                    }
+                }
+                return locations;
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching locations", e);
+        }
+    }
+
+    // Asynchronous API: same operations, run off the caller's thread.
+    // Callers on the FX thread should continue with an FX executor, e.g. thenAcceptAsync(..., Platform::runLater).
+
+    public CompletableFuture<Void> createItemAsync(Item item) {
+        return CompletableFuture.runAsync(() -> createItem(item), ASYNC_EXECUTOR);
+    }
+
+    public CompletableFuture<Void> updateItemAsync(Item item) {
+        return CompletableFuture.runAsync(() -> updateItem(item), ASYNC_EXECUTOR);
+    }
+
+    public CompletableFuture<Void> deleteItemAsync(UUID itemId) {
+        return CompletableFuture.runAsync(() -> deleteItem(itemId), ASYNC_EXECUTOR);
+    }
+
+    public CompletableFuture<Integer> streamItemsAsync(ItemProjection projection, UUID afterId, Consumer<List<Item>> pageConsumer) {
+        return CompletableFuture.supplyAsync(() -> streamItems(ITEM_PAGE_SIZE, projection, afterId, pageConsumer), ASYNC_EXECUTOR);
+    }
+
+    public CompletableFuture<Integer> streamItemsWithMinStockAsync(Consumer<List<Item>> pageConsumer) {
+        return CompletableFuture.supplyAsync(() -> streamItemsWithMinStock(pageConsumer), ASYNC_EXECUTOR);
+    }
+
+    public CompletableFuture<List<Location>> getLocationsAsync() {
+        return CompletableFuture.supplyAsync(this::getLocations, ASYNC_EXECUTOR);
+    }
+
+    public CompletableFuture<ItemPage> getItemsPageAsync(ItemProjection projection, String search, long offset, int limit) {
+        return CompletableFuture.supplyAsync(() -> getItemsPage(projection, search, offset, limit), ASYNC_EXECUTOR);
+    }
+
+    public CompletableFuture<List<Item>> getItemsChangedSinceAsync(LocalDateTime since) {
+        return CompletableFuture.supplyAsync(() -> getItemsChangedSince(since), ASYNC_EXECUTOR);
+    }
+
+    public CompletableFuture<Integer> getCurrentStockAsync(UUID itemId) {
+        return CompletableFuture.supplyAsync(() -> getCurrentStock(itemId), ASYNC_EXECUTOR);
+    }
+
+    public CompletableFuture<Map<UUID, Integer>> getCurrentStockAsync(Collection<UUID> itemIds) {
+        return CompletableFuture.supplyAsync(() -> getCurrentStock(itemIds), ASYNC_EXECUTOR);
+    }
+
+    public CompletableFuture<List<Item>> getAllItemsAsync(ItemProjection projection) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return getAllItems(projection);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, ASYNC_EXECUTOR);
+    }
+
+    public CompletableFuture<Long> countActiveItemsAsync() {
+        return CompletableFuture.supplyAsync(this::countActiveItems, ASYNC_EXECUTOR);
+    }
+
+    public CompletableFuture<Void> createTransactionAsync(Transaction transaction) {
+        return CompletableFuture.runAsync(() -> createTransaction(transaction), ASYNC_EXECUTOR);
+    }
+
+    public CompletableFuture<IssueResult> issueTransactionsAsync(Collection<Transaction> transactions, boolean allowNegative) {
+        return CompletableFuture.supplyAsync(() -> issueTransactions(transactions, allowNegative), ASYNC_EXECUTOR);
+    }
+
+    public CompletableFuture<Integer> streamMovementSummaryAsync(SummaryPeriod period, LocalDate startDate, LocalDate endDate,
+                                                                 AtomicBoolean cancelled, Consumer<List<MovementSummaryRow>> pageConsumer) {
+        return CompletableFuture.supplyAsync(
+            () -> streamMovementSummary(period, startDate, endDate, REPORT_PAGE_SIZE, cancelled, pageConsumer), ASYNC_EXECUTOR);
+    }
+
+    public CompletableFuture<DayOfWeek> getWeekStartDayAsync() {
+        return CompletableFuture.supplyAsync(this::getWeekStartDay, ASYNC_EXECUTOR);
+    }
+
+    public CompletableFuture<Void> setWeekStartDayAsync(DayOfWeek weekStartDay) {
+        return CompletableFuture.runAsync(() -> setWeekStartDay(weekStartDay), ASYNC_EXECUTOR);
+    }
+
+    public CompletableFuture<List<TransactionReportRow>> getTransactionReportAsync(LocalDate startDate, LocalDate endDate) {
+        return CompletableFuture.supplyAsync(() -> getTransactionReport(startDate, endDate), ASYNC_EXECUTOR);
+    }
+
+    public CompletableFuture<Integer> streamTransactionReportAsync(LocalDate startDate, LocalDate endDate,
+                                                                   AtomicBoolean cancelled,
+                                                                   Consumer<List<TransactionReportRow>> pageConsumer) {
+        return CompletableFuture.supplyAsync(
+            () -> streamTransactionReport(startDate, endDate, REPORT_PAGE_SIZE, cancelled, pageConsumer), ASYNC_EXECUTOR);
+    }
+
+    /**
+     * Outcome of {@link #issueTransactions}: either the new balance of every issued item, or the
+     * first item that did not have enough stock.
+     */
+    public static class IssueResult {
+        private final boolean issued;
+        private final Map<UUID, Integer> balances;
+        private final UUID shortItemId;
+        private final UUID shortLocationId;
+        private final int available;
+        private final int requested;
+
+        private IssueResult(boolean issued, Map<UUID, Integer> balances, UUID shortItemId, UUID shortLocationId,
+                            int available, int requested) {
+            this.issued = issued;
+            this.balances = balances;
+            this.shortItemId = shortItemId;
+            this.shortLocationId = shortLocationId;
+            this.available = available;
+            this.requested = requested;
+        }
+
+        static IssueResult fromJson(JsonObject json) {
+            if ("OK".equals(json.getString("status"))) {
+                Map<UUID, Integer> balances = new HashMap<>();
+                for (JsonValue value : json.getJsonArray("balances")) {
+                    JsonObject balance = value.asJsonObject();
+                    balances.put(UUID.fromString(balance.getString("item_id")), balance.getInt("balance"));
+                }
+                return new IssueResult(true, balances, null, null, 0, 0);
+            }
+            int available = json.isNull("available") ? 0 : json.getInt("available");
+            String locationId = json.containsKey("location_id") && !json.isNull("location_id") ? json.getString("location_id") : null;
+            return new IssueResult(false, Map.of(), UUID.fromString(json.getString("item_id")),
+                locationId == null ? null : UUID.fromString(locationId), available, json.getInt("requested"));
+        }
+
+        public boolean isIssued() { return issued; }
+        public Map<UUID, Integer> getBalances() { return balances; }
+        public UUID getShortItemId() { return shortItemId; }
+        /** The location the short item was to be issued from, or null for servers without per-location stock. */
+        public UUID getShortLocationId() { return shortLocationId; }
+        public int getAvailable() { return available; }
+        public int getRequested() { return requested; }
+    }
+
+    /**
+     * Column sets requested from the items table; each screen asks only for what it shows.
+     */
+    public enum ItemProjection {
+        /** Everything the Items tab, the search index and the exports use. */
+        TABLE("id,item_code,name,category,unit,min_stock,is_palindrome,is_active,updated_at"),
+        /** Enough to fill an item picker. */
+        PICKER("id,item_code,name,is_active,updated_at"),
+        /** What the low-stock monitor needs. */
+        REORDER("id,item_code,name,min_stock,is_active,updated_at"),
+        FULL("*");
+
+        private final String columns;
+
+        ItemProjection(String columns) {
+            this.columns = columns;
+        }
+    }
+
+    /**
+     * One window of items and the total number of items matching the same filter.
+     */
+    public record ItemPage(List<Item> items, long total) { }
+
+    /**
+     * Granularity of a movement summary, with the view that serves it.
+     */
+    public enum SummaryPeriod {
+        DAILY("movement_daily_report"),
+        WEEKLY("movement_weekly_report");
+
+        private final String view;
+
+        SummaryPeriod(String view) {
+            this.view = view;
+        }
+    }
+
+    /**
+     * In/out/disposition totals of one item over one day or week, from the movement rollups.
+     */
+    public static class MovementSummaryRow {
+        private LocalDate periodStart;
+        private UUID itemId;
+        private String itemCode;
+        private String itemName;
+        private int inQty;
+        private int outQty;
+        private int dispositionQty;
+        private int adjustQty;
+        private BigDecimal inValue = BigDecimal.ZERO;
+        private BigDecimal outValue = BigDecimal.ZERO;
+        private BigDecimal dispositionValue = BigDecimal.ZERO;
+
+        private void applyField(String key, String value, Map<String, String> strings) {
+            switch (key) {
+                case "period_start" -> periodStart = LocalDate.parse(value);
+                case "item_id" -> itemId = UUID.fromString(value);
+                case "item_code" -> itemCode = strings.computeIfAbsent(value, v -> v);
+                case "item_name" -> itemName = strings.computeIfAbsent(value, v -> v);
+                default -> { }
+            }
+        }
+
+        private void applyNumber(String key, JsonParser parser) {
+            switch (key) {
+                case "in_qty" -> inQty = parser.getInt();
+                case "out_qty" -> outQty = parser.getInt();
+                case "disposition_qty" -> dispositionQty = parser.getInt();
+                case "adjust_qty" -> adjustQty = parser.getInt();
+                case "in_value" -> inValue = parser.getBigDecimal();
+                case "out_value" -> outValue = parser.getBigDecimal();
+                case "disposition_value" -> dispositionValue = parser.getBigDecimal();
+                default -> { }
+            }
+        }
+
+        public LocalDate getPeriodStart() { return periodStart; }
+        public UUID getItemId() { return itemId; }
+        public String getItemCode() { return itemCode; }
+        public String getItemName() { return itemName; }
+        public int getInQty() { return inQty; }
+        public int getOutQty() { return outQty; }
+        public int getDispositionQty() { return dispositionQty; }
+        public int getAdjustQty() { return adjustQty; }
+        public BigDecimal getInValue() { return inValue; }
+        public BigDecimal getOutValue() { return outValue; }
+        public BigDecimal getDispositionValue() { return dispositionValue; }
+    }
+
+    /**
+     * One line of the transaction_report view. Enums and shared strings keep it small, since a
+     * long date range can hold millions of them.
+     */
     public static class TransactionReportRow {
-        // Define fields and methods for the TransactionReportRow class
+        private UUID lineId;
+        private UUID transactionId;
+        private UUID itemId;
+        private LocalDate txDate;
+        private LocalDateTime createdAt;
+        private LocalDateTime recordedAt;
+        private Transaction.TransactionType txType;
+        private TransactionLine.ConditionStatus conditionStatus;
+        private String reference;
+        private String itemCode;
+        private String itemName;
+        private String notes;
+        private int qty;
+        private BigDecimal unitPrice;
+
+        private void applyField(String key, String value, Map<String, String> strings) {
+            switch (key) {
+                case "line_id" -> lineId = UUID.fromString(value);
+                case "id" -> transactionId = UUID.fromString(value);
+                case "item_id" -> itemId = UUID.fromString(value);
+                case "tx_date" -> txDate = LocalDate.parse(value);
+                case "created_at" -> createdAt = parseTimestamp(value);
+                case "recorded_at" -> recordedAt = parseTimestamp(value);
+                case "tx_type" -> txType = Transaction.TransactionType.valueOf(value);
+                case "condition_status" -> conditionStatus = TransactionLine.ConditionStatus.valueOf(value);
+                case "reference" -> reference = value;
+                case "item_code" -> itemCode = strings.computeIfAbsent(value, v -> v);
+                case "item_name" -> itemName = strings.computeIfAbsent(value, v -> v);
+                case "notes" -> notes = value;
+                default -> { }
+            }
+        }
+
+        public UUID getLineId() { return lineId; }
+        public UUID getTransactionId() { return transactionId; }
+        public UUID getItemId() { return itemId; }
+        public LocalDate getTxDate() { return txDate; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public LocalDateTime getRecordedAt() { return recordedAt; }
+        public String getTxType() { return txType == null ? null : txType.name(); }
+        public Transaction.TransactionType getTransactionType() { return txType; }
+        public TransactionLine.ConditionStatus getConditionStatus() { return conditionStatus; }
+        public String getReference() { return reference; }
+        public String getItemCode() { return itemCode; }
+        public String getItemName() { return itemName; }
+        public String getNotes() { return notes; }
+        public int getQty() { return qty; }
+        public BigDecimal getUnitPrice() { return unitPrice; }
     }
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.inventory.service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Application-wide HTTP transport shared by every SupabaseService.
+ * One HttpClient means one connection pool, one HTTP/2 connection multiplexing
+ * all requests to the project, and one TLS handshake per process.
+ */
+public final class SupabaseTransport {
+    private static final Logger logger = LoggerFactory.getLogger(SupabaseTransport.class);
+
+    public static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    public static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(20);
+    private static final int MAX_THREADS = 4;
+    private static final String KEEP_ALIVE_SECONDS = "300";
+    private static final int BREAKER_FAILURE_THRESHOLD = 5;
+    private static final Duration BREAKER_OPEN_DURATION = Duration.ofSeconds(15);
+
+    private static SupabaseTransport instance;
+
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(BREAKER_FAILURE_THRESHOLD, BREAKER_OPEN_DURATION);
+
+    private SupabaseTransport() {
+        // Read by the JDK client when it is built; keep idle connections around between clerk actions
+        if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", KEEP_ALIVE_SECONDS);
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(MAX_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "supabase-http-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .executor(executor)
+            .build();
+    }
+
+    public static synchronized SupabaseTransport getInstance() {
+        if (instance == null) {
+            instance = new SupabaseTransport();
+        }
+        return instance;
+    }
+
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Shared by all services talking to the project, so one outage trips it once for everyone.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Opens (and TLS-negotiates) the connection to the project ahead of the first real request.
+     * Failures are only logged; the first real call will surface them properly.
+     */
+    public CompletableFuture<Void> warmUp(String baseUrl, String apiKey) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/rest/v1/"))
+                .header("apikey", apiKey)
+                .timeout(REQUEST_TIMEOUT)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build();
+        } catch (IllegalArgumentException e) {
+            logger.warn("Skipping connection warm-up, invalid Supabase URL: {}", baseUrl);
+            return CompletableFuture.completedFuture(null);
+        }
+        long start = System.nanoTime();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .handle((response, error) -> {
+                if (error != null) {
+                    logger.warn("Supabase connection warm-up failed: {}", error.getMessage());
+                } else {
+                    logger.info("Supabase connection warmed up ({}, {} ms)", response.version(),
+                        (System.nanoTime() - start) / 1_000_000);
+                }
+                return null;
+            });
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
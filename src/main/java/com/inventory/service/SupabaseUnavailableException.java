@@ -0,0 +1,12 @@
+package com.inventory.service;
+
+/**
+ * Thrown without contacting the server while the circuit breaker considers Supabase down.
+ */
+public class SupabaseUnavailableException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public SupabaseUnavailableException(String message) {
+        super(message);
+    }
+}
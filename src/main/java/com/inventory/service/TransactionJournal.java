@@ -0,0 +1,410 @@
+package com.inventory.service;
+
+import com.inventory.model.Transaction;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only local journal for transactions. {@link #append} writes one JSON line and returns;
+ * a flusher fsyncs the file in batches and a replayer drains entries to Supabase in order,
+ * retrying with backoff until each one is acknowledged.
+ * <p>
+ * Records are {@code {"op":"tx","tx":{...}}} and {@code {"op":"ack","id":"..."}}; replaying a
+ * transaction twice is harmless because the server side ignores duplicate ids.
+ * <p>
+ * A transaction the server rejects outright is moved to a quarantine file next to the journal
+ * ({@code <journal>.rejected}) instead of being dropped, and stays there until it is retried or
+ * discarded.
+ */
+public class TransactionJournal implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionJournal.class);
+
+    private static final long FSYNC_INTERVAL_MS = 50;
+    private static final long MIN_RETRY_DELAY_MS = 1_000;
+    private static final long MAX_RETRY_DELAY_MS = 60_000;
+
+    /**
+     * A transaction the server refused, with the reason it gave.
+     */
+    public record Rejected(Transaction transaction, String reason, LocalDateTime rejectedAt) { }
+
+    private final Path file;
+    private final Path quarantineFile;
+    private final Map<UUID, Rejected> rejected;
+    private final Consumer<Transaction> sender;
+    private final FileChannel channel;
+    private final BlockingDeque<Transaction> pending = new LinkedBlockingDeque<>();
+    // Queued plus in flight; the replayer takes an entry off the queue while delivering it
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private ScheduledExecutorService flusher;
+    private Thread replayer;
+    private volatile IntConsumer onPendingChanged = _ -> { };
+    private volatile Consumer<List<Rejected>> onRejectedChanged = _ -> { };
+    private boolean dirty;
+    private volatile boolean closed;
+
+    /**
+     * Opens (or creates) the journal, re-queues every transaction not yet acknowledged and starts
+     * the background flusher and replayer.
+     *
+     * @param sender writes one transaction to the server, throwing if it was not accepted
+     */
+    public static TransactionJournal open(Path file, Consumer<Transaction> sender) throws IOException {
+        TransactionJournal journal = new TransactionJournal(file, sender);
+        journal.start();
+        return journal;
+    }
+
+    private TransactionJournal(Path file, Consumer<Transaction> sender) throws IOException {
+        this.file = file;
+        this.sender = sender;
+        this.quarantineFile = file.resolveSibling(file.getFileName() + ".rejected");
+        this.rejected = readQuarantine(quarantineFile);
+        List<Transaction> unacknowledged = recover(file);
+        // Quarantined but not yet acknowledged when the app stopped
+        unacknowledged.removeIf(transaction -> rejected.containsKey(transaction.getId()));
+        compact(file, unacknowledged);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        pending.addAll(unacknowledged);
+        outstanding.set(unacknowledged.size());
+        if (!unacknowledged.isEmpty()) {
+            logger.info("Recovered {} unsynchronized transactions from {}", unacknowledged.size(), file);
+        }
+    }
+
+    private void start() {
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-fsync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FSYNC_INTERVAL_MS, FSYNC_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+        this.replayer = new Thread(this::replayLoop, "journal-replay");
+        replayer.setDaemon(true);
+        replayer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "journal-shutdown-fsync"));
+    }
+
+    /**
+     * Records the transaction locally and queues it for delivery. Returns as soon as the record
+     * is written to the OS; it reaches the disk with the next batched fsync.
+     */
+    public void append(Transaction transaction) {
+        synchronized (this) {
+            writeRecord(txRecord(transaction));
+            pending.addLast(transaction);
+            outstanding.incrementAndGet();
+        }
+        onPendingChanged.accept(outstanding.get());
+    }
+
+    public int getPendingCount() {
+        return outstanding.get();
+    }
+
+    /**
+     * Called from the replayer thread whenever the number of undelivered transactions changes.
+     */
+    public void setOnPendingChanged(IntConsumer onPendingChanged) {
+        this.onPendingChanged = onPendingChanged == null ? _ -> { } : onPendingChanged;
+    }
+
+    /**
+     * @return the quarantined transactions, oldest rejection first
+     */
+    public synchronized List<Rejected> getRejected() {
+        return new ArrayList<>(rejected.values());
+    }
+
+    /**
+     * Called with the whole quarantine whenever an entry is added, retried or discarded; on the
+     * replayer thread for new rejections.
+     */
+    public void setOnRejectedChanged(Consumer<List<Rejected>> onRejectedChanged) {
+        this.onRejectedChanged = onRejectedChanged == null ? _ -> { } : onRejectedChanged;
+    }
+
+    /**
+     * Takes the given transactions out of quarantine and queues them for delivery again, e.g.
+     * once the schema problem that rejected them has been fixed.
+     */
+    public void retryRejected(Collection<UUID> transactionIds) {
+        synchronized (this) {
+            List<Transaction> retried = new ArrayList<>();
+            for (UUID transactionId : transactionIds) {
+                Rejected entry = rejected.get(transactionId);
+                if (entry != null) {
+                    retried.add(entry.transaction());
+                }
+            }
+            if (retried.isEmpty()) {
+                return;
+            }
+            // On disk in the journal before they leave the quarantine: a crash in between leaves
+            // them in both files, never neither
+            for (Transaction transaction : retried) {
+                writeRecord(txRecord(transaction));
+            }
+            try {
+                channel.force(false);
+                dirty = false;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write transaction journal " + file, e);
+            }
+            for (Transaction transaction : retried) {
+                rejected.remove(transaction.getId());
+            }
+            writeQuarantine();
+            pending.addAll(retried);
+            outstanding.addAndGet(retried.size());
+        }
+        onPendingChanged.accept(outstanding.get());
+        onRejectedChanged.accept(getRejected());
+    }
+
+    /**
+     * Deletes the given transactions from quarantine for good.
+     */
+    public void discardRejected(Collection<UUID> transactionIds) {
+        synchronized (this) {
+            rejected.keySet().removeAll(transactionIds);
+            writeQuarantine();
+        }
+        onRejectedChanged.accept(getRejected());
+    }
+
+    private void replayLoop() {
+        long retryDelay = MIN_RETRY_DELAY_MS;
+        while (!closed) {
+            Transaction transaction;
+            try {
+                transaction = pending.takeFirst();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                sender.accept(transaction);
+                acknowledge(transaction.getId());
+                retryDelay = MIN_RETRY_DELAY_MS;
+            } catch (RuntimeException e) {
+                SupabaseHttpException httpError = SupabaseHttpException.find(e);
+                if (httpError != null && !httpError.isRetryable()) {
+                    // The server will never accept it as-is; set it aside rather than block everything behind it
+                    logger.error("Transaction {} rejected by Supabase, moving it to {}", transaction.getId(), quarantineFile, e);
+                    quarantine(transaction, httpError.getMessage());
+                    acknowledge(transaction.getId());
+                    continue;
+                }
+                logger.warn("Transaction {} not delivered, retrying in {} ms: {}", transaction.getId(), retryDelay, e.getMessage());
+                pending.addFirst(transaction);
+                try {
+                    Thread.sleep(retryDelay + ThreadLocalRandom.current().nextLong(retryDelay / 2 + 1));
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MS);
+            }
+        }
+    }
+
+    private void acknowledge(UUID transactionId) {
+        int remaining;
+        synchronized (this) {
+            remaining = outstanding.get() - 1;
+            try {
+                if (remaining == 0) {
+                    // Everything delivered: start the file over instead of letting acks pile up
+                    channel.truncate(0);
+                    channel.position(0);
+                    channel.force(false);
+                    dirty = false;
+                } else {
+                    writeRecord(Json.createObjectBuilder().add("op", "ack").add("id", transactionId.toString()).build());
+                }
+                outstanding.decrementAndGet();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to update transaction journal " + file, e);
+            }
+        }
+        onPendingChanged.accept(remaining);
+    }
+
+    private void quarantine(Transaction transaction, String reason) {
+        synchronized (this) {
+            rejected.put(transaction.getId(), new Rejected(transaction, reason, LocalDateTime.now()));
+            writeQuarantine();
+        }
+        onRejectedChanged.accept(getRejected());
+    }
+
+    // Rewritten whole: it only ever holds a handful of entries. Written and synced before the
+    // journal acknowledges the entry, so a crash in between leaves it in both files, never neither.
+    private void writeQuarantine() {
+        Path temp = quarantineFile.resolveSibling(quarantineFile.getFileName() + ".tmp");
+        StringBuilder content = new StringBuilder();
+        for (Rejected entry : rejected.values()) {
+            content.append(Json.createObjectBuilder()
+                .add("tx", TransactionJson.toJson(entry.transaction()))
+                .add("reason", entry.reason() == null ? "" : entry.reason())
+                .add("rejected_at", entry.rejectedAt().toString())
+                .build()).append('\n');
+        }
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                out.force(false);
+            }
+            Files.move(temp, quarantineFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write transaction quarantine " + quarantineFile, e);
+        }
+    }
+
+    private static Map<UUID, Rejected> readQuarantine(Path quarantineFile) throws IOException {
+        Map<UUID, Rejected> entries = new LinkedHashMap<>();
+        if (!Files.exists(quarantineFile)) {
+            return entries;
+        }
+        for (String line : Files.readAllLines(quarantineFile, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try (JsonReader jsonReader = Json.createReader(new StringReader(line))) {
+                JsonObject record = jsonReader.readObject();
+                Transaction transaction = TransactionJson.fromJson(record.getJsonObject("tx"));
+                entries.put(transaction.getId(), new Rejected(transaction, record.getString("reason", ""),
+                    LocalDateTime.parse(record.getString("rejected_at"))));
+            }
+        }
+        return entries;
+    }
+
+    private static JsonObject txRecord(Transaction transaction) {
+        return Json.createObjectBuilder().add("op", "tx").add("tx", TransactionJson.toJson(transaction)).build();
+    }
+
+    // Compacts on open: only what is still outstanding is kept. Written beside the journal and
+    // moved over it, so a crash leaves either the old journal or the compacted one.
+    private static void compact(Path file, List<Transaction> unacknowledged) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        StringBuilder content = new StringBuilder();
+        for (Transaction transaction : unacknowledged) {
+            content.append(txRecord(transaction)).append('\n');
+        }
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(false);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeRecord(JsonObject record) {
+        ByteBuffer buffer = ByteBuffer.wrap((record.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            dirty = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write transaction journal " + file, e);
+        }
+    }
+
+    private synchronized void flush() {
+        if (!dirty || !channel.isOpen()) {
+            return;
+        }
+        try {
+            channel.force(false);
+            dirty = false;
+        } catch (IOException e) {
+            logger.error("Failed to fsync transaction journal {}", file, e);
+        }
+    }
+
+    // Replays the file: every "tx" record without a later "ack" is still outstanding
+    private static List<Transaction> recover(Path file) throws IOException {
+        Map<UUID, Transaction> outstanding = new LinkedHashMap<>();
+        if (!Files.exists(file)) {
+            return new ArrayList<>();
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonObject record;
+                try (JsonReader jsonReader = Json.createReader(new StringReader(line))) {
+                    record = jsonReader.readObject();
+                } catch (RuntimeException e) {
+                    // A torn final line from a crash mid-write; everything before it is intact
+                    logger.warn("Ignoring unreadable journal record in {}", file);
+                    continue;
+                }
+                if ("tx".equals(record.getString("op"))) {
+                    Transaction transaction = TransactionJson.fromJson(record.getJsonObject("tx"));
+                    outstanding.put(transaction.getId(), transaction);
+                } else if ("ack".equals(record.getString("op"))) {
+                    outstanding.remove(UUID.fromString(record.getString("id")));
+                }
+            }
+        }
+        return new ArrayList<>(outstanding.values());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        replayer.interrupt();
+        flusher.shutdownNow();
+        synchronized (this) {
+            try {
+                channel.force(false);
+                channel.close();
+            } catch (IOException e) {
+                logger.error("Failed to close transaction journal {}", file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.inventory.service;
+
+import com.inventory.model.Transaction;
+import com.inventory.model.TransactionLine;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonValue;
+
+/**
+ * JSON shape of transactions and their lines, matching the transactions and
+ * transaction_lines columns. Used for PostgREST bodies and the local journal.
+ */
+final class TransactionJson {
+
+    private TransactionJson() {
+    }
+
+    static JsonObject header(Transaction transaction) {
+        JsonObjectBuilder builder = Json.createObjectBuilder()
+            .add("id", transaction.getId().toString())
+            .add("tx_type", transaction.getTxType().name())
+            .add("tx_date", transaction.getTxDate().toString());
+        addNullable(builder, "reference", transaction.getReference());
+        addNullable(builder, "created_by", transaction.getCreatedBy());
+        addNullable(builder, "notes", transaction.getNotes());
+        addNullable(builder, "created_at", transaction.getCreatedAt());
+        return builder.build();
+    }
+
+    static JsonArray lines(Transaction transaction) {
+        JsonArrayBuilder lines = Json.createArrayBuilder();
+        for (TransactionLine line : transaction.getLines()) {
+            JsonObjectBuilder builder = Json.createObjectBuilder()
+                .add("id", line.getId().toString())
+                .add("transaction_id", transaction.getId().toString())
+                .add("item_id", line.getItemId().toString())
+                .add("qty", line.getQty())
+                .add("condition_status", line.getConditionStatus().name());
+            addNullable(builder, "location_id", line.getLocationId());
+            if (line.getUnitPrice() != null) {
+                builder.add("unit_price", line.getUnitPrice());
+            } else {
+                builder.addNull("unit_price");
+            }
+            lines.add(builder);
+        }
+        return lines.build();
+    }
+
+    /**
+     * Header plus a nested "lines" array: the self-contained form stored in the journal.
+     */
+    static JsonObject toJson(Transaction transaction) {
+        return Json.createObjectBuilder(header(transaction))
+            .add("lines", lines(transaction))
+            .build();
+    }
+
+    static Transaction fromJson(JsonObject json) {
+        Transaction transaction = new Transaction();
+        transaction.setId(UUID.fromString(json.getString("id")));
+        transaction.setTxType(Transaction.TransactionType.valueOf(json.getString("tx_type")));
+        transaction.setTxDate(LocalDate.parse(json.getString("tx_date")));
+        transaction.setReference(getNullableString(json, "reference"));
+        String createdBy = getNullableString(json, "created_by");
+        transaction.setCreatedBy(createdBy == null ? null : UUID.fromString(createdBy));
+        transaction.setNotes(getNullableString(json, "notes"));
+        String createdAt = getNullableString(json, "created_at");
+        transaction.setCreatedAt(createdAt == null ? null : LocalDateTime.parse(createdAt));
+
+        for (JsonValue value : json.getJsonArray("lines")) {
+            JsonObject lineJson = value.asJsonObject();
+            TransactionLine line = new TransactionLine(
+                UUID.fromString(lineJson.getString("item_id")), lineJson.getInt("qty"));
+            line.setId(UUID.fromString(lineJson.getString("id")));
+            line.setTransactionId(transaction.getId());
+            String locationId = getNullableString(lineJson, "location_id");
+            line.setLocationId(locationId == null ? null : UUID.fromString(locationId));
+            line.setConditionStatus(TransactionLine.ConditionStatus.valueOf(lineJson.getString("condition_status")));
+            if (!lineJson.isNull("unit_price")) {
+                line.setUnitPrice(lineJson.getJsonNumber("unit_price").bigDecimalValue());
+            }
+            transaction.addLine(line);
+        }
+        return transaction;
+    }
+
+    private static void addNullable(JsonObjectBuilder builder, String key, Object value) {
+        if (value == null) {
+            builder.addNull(key);
+        } else {
+            builder.add(key, value.toString());
+        }
+    }
+
+    private static String getNullableString(JsonObject json, String key) {
+        return json.containsKey(key) && !json.isNull(key) ? json.getString(key) : null;
+    }
+}
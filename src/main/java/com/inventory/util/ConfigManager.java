@@ -1,83 +1,360 @@
 package com.inventory.util;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Application settings from {@code config.properties}.
+ * <p>
+ * Readers see an immutable snapshot published through a volatile field, so any thread can read
+ * without locking. Writers replace the whole file once per {@link #batch() batch}: the new content
+ * goes to a temporary file which is then renamed over the old one, so a crash never leaves a
+ * half-written config. Once {@link #startWatching()} has been called, edits made to the file by
+ * hand are picked up without a restart.
+ * <p>
+ * Some settings are read once at startup to build long-lived objects: the Supabase URL and key
+ * (the service, transport and change feed), the journal file, the realtime switch and the
+ * snapshot, valuation, metrics and paging settings. A new value for one of those is written to the
+ * file, but readers keep seeing the value the application started with until it is restarted;
+ * {@link #getPendingRestartKeys()} lists them and {@link #getConfiguredProperty} shows what the
+ * file holds.
+ */
 public class ConfigManager {
     private static final Logger logger = LoggerFactory.getLogger(ConfigManager.class);
     private static final String CONFIG_FILE = "config.properties";
-    private static Properties properties;
+    private static final long RELOAD_SETTLE_MS = 200;
+    private static final Map<String, String> DEFAULTS = defaults();
     
-    public static void initialize() {
-        properties = new Properties();
-        
-        // Set default values
-        properties.setProperty("supabase.url", "https://your-project.supabase.co");
-        properties.setProperty("supabase.api_key", "your-anon-key");
-        properties.setProperty("count_non_usable_as_outgoing", "true");
-        properties.setProperty("allow_negative_stock", "false");
-        properties.setProperty("week_start_day", "1"); // 1 = Monday
-        
-        // Load existing config if available
-        File configFile = new File(CONFIG_FILE);
-        if (configFile.exists()) {
-            try (FileInputStream fis = new FileInputStream(configFile)) {
-                properties.load(fis);
+    private static final Set<String> RESTART_KEYS = Set.of("supabase.url", "supabase.api_key",
+        "stock_snapshot_max_age_seconds", "transaction_journal_file", "realtime_enabled",
+        "metrics_log_interval_seconds", "paged_items_threshold", "valuation_refresh_seconds");
+    
+    private static volatile Map<String, String> values = DEFAULTS;
+    // What the file holds, including restart-only values not yet published; guarded by the class lock
+    private static Map<String, String> stored = DEFAULTS;
+    private static final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private static Thread watcher;
+    
+    private static Map<String, String> defaults() {
+        Map<String, String> defaults = new LinkedHashMap<>();
+        defaults.put("supabase.url", "https://your-project.supabase.co");
+        defaults.put("supabase.api_key", "your-anon-key");
+        defaults.put("count_non_usable_as_outgoing", "true");
+        defaults.put("allow_negative_stock", "false");
+        defaults.put("week_start_day", "1"); // 1 = Monday
+        defaults.put("stock_snapshot_max_age_seconds", "30");
+        defaults.put("transaction_journal_file", "transactions.journal");
+        defaults.put("realtime_enabled", "true");
+        defaults.put("metrics_log_interval_seconds", "0"); // 0 = off
+        defaults.put("hedged_reads_enabled", "false");
+        defaults.put("paged_items_threshold", "50000");
+        defaults.put("valuation_refresh_seconds", "60");
+        return Map.copyOf(defaults);
+    }
+    
+    public static synchronized void initialize() {
+        Path configFile = configPath();
+        if (Files.exists(configFile)) {
+            try {
+                values = load(configFile);
                 logger.info("Configuration loaded from file");
             } catch (IOException e) {
                 logger.warn("Could not load existing config, using defaults", e);
+                values = DEFAULTS;
+            }
+        } else {
+            values = DEFAULTS;
+            // Save default config if file doesn't exist
+            try {
+                store(values);
+            } catch (IOException e) {
+                logger.error("Failed to save configuration", e);
             }
         }
-        
-        // Save default config if file doesn't exist
-        if (!configFile.exists()) {
-            saveConfig();
-        }
+        stored = values;
+    }
+    
+    /**
+     * @return every setting as one consistent, immutable view
+     */
+    public static Map<String, String> snapshot() {
+        return values;
     }
     
     public static String getProperty(String key) {
-        return properties.getProperty(key);
+        return values.get(key);
     }
     
     public static String getProperty(String key, String defaultValue) {
-        return properties.getProperty(key, defaultValue);
+        return values.getOrDefault(key, defaultValue);
+    }
+    
+    /**
+     * @return the value in the config file, which for a restart-only setting may not be in effect yet
+     */
+    public static synchronized String getConfiguredProperty(String key) {
+        return stored.get(key);
+    }
+    
+    /**
+     * @return restart-only settings whose value in the file differs from the one in effect
+     */
+    public static synchronized Set<String> getPendingRestartKeys() {
+        Set<String> pending = new TreeSet<>();
+        for (String key : RESTART_KEYS) {
+            if (!Objects.equals(stored.get(key), values.get(key))) {
+                pending.add(key);
+            }
+        }
+        return pending;
     }
     
     public static boolean getBooleanProperty(String key) {
-        return Boolean.parseBoolean(properties.getProperty(key, "false"));
+        return Boolean.parseBoolean(getProperty(key, "false"));
     }
     
     public static int getIntProperty(String key) {
         try {
-            return Integer.parseInt(properties.getProperty(key, "0"));
+            return Integer.parseInt(getProperty(key, "0"));
         } catch (NumberFormatException e) {
             return 0;
         }
     }
     
     public static void setProperty(String key, String value) {
-        properties.setProperty(key, value);
-        saveConfig();
+        batch().set(key, value).commit();
     }
     
     public static void setProperty(String key, boolean value) {
-        properties.setProperty(key, String.valueOf(value));
-        saveConfig();
+        batch().set(key, value).commit();
     }
     
     public static void setProperty(String key, int value) {
-        properties.setProperty(key, String.valueOf(value));
-        saveConfig();
+        batch().set(key, value).commit();
     }
     
-    private static void saveConfig() {
-        try (FileOutputStream fos = new FileOutputStream(CONFIG_FILE)) {
-            properties.store(fos, "Inventory System Configuration - Supabase");
-            logger.info("Configuration saved to file");
+    /**
+     * Starts a set of changes that are written to disk and published together by {@link Batch#commit()}.
+     */
+    public static Batch batch() {
+        return new Batch();
+    }
+    
+    /**
+     * Registers a callback run on the watcher thread whenever an outside edit to the config file
+     * changes a setting, including a restart-only one that is not in effect yet.
+     */
+    public static void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+    
+    /**
+     * Watches the config file's directory and reloads the settings when the file is edited
+     * outside the application. Safe to call more than once.
+     */
+    public static synchronized void startWatching() {
+        if (watcher != null) {
+            return;
+        }
+        Path directory = configPath().getParent();
+        WatchService watchService;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.warn("Could not watch {} for configuration changes", directory, e);
+            return;
+        }
+        watcher = new Thread(() -> watch(watchService), "config-watch");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+    
+    private static void watch(WatchService watchService) {
+        Path fileName = configPath().getFileName();
+        try (watchService) {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean touched = touchesConfig(key, fileName);
+                // Editors often save in several steps; wait for the writes to settle before reading
+                while (touched && (key = watchService.poll(RELOAD_SETTLE_MS, TimeUnit.MILLISECONDS)) != null) {
+                    touchesConfig(key, fileName);
+                }
+                if (touched) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopped
+        } catch (IOException e) {
+            logger.warn("Configuration watcher stopped", e);
+        }
+    }
+    
+    private static boolean touchesConfig(WatchKey key, Path fileName) {
+        boolean touched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            touched |= fileName.equals(event.context()) || event.kind() == StandardWatchEventKinds.OVERFLOW;
+        }
+        key.reset();
+        return touched;
+    }
+    
+    private static void reload() {
+        synchronized (ConfigManager.class) {
+            Map<String, String> reloaded;
+            try {
+                reloaded = load(configPath());
+            } catch (IOException e) {
+                logger.warn("Could not reload configuration, keeping current settings", e);
+                return;
+            }
+            // Our own writes land here too; they match what was stored
+            if (reloaded.equals(stored)) {
+                return;
+            }
+            stored = reloaded;
+            values = publishable(reloaded);
+        }
+        logger.info("Configuration reloaded from file");
+        Set<String> pending = getPendingRestartKeys();
+        if (!pending.isEmpty()) {
+            logger.warn("Changes to {} take effect after a restart", pending);
+        }
+        for (Runnable listener : changeListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                logger.error("Configuration change listener failed", e);
+            }
+        }
+    }
+    
+    private static synchronized void apply(Map<String, String> changes) {
+        Map<String, String> next = new HashMap<>(stored);
+        next.putAll(changes);
+        try {
+            store(next);
         } catch (IOException e) {
             logger.error("Failed to save configuration", e);
+            throw new UncheckedIOException("Failed to save configuration", e);
+        }
+        stored = Map.copyOf(next);
+        values = publishable(stored);
+    }
+    
+    // The file's settings, except that restart-only ones keep the value currently in effect
+    private static Map<String, String> publishable(Map<String, String> file) {
+        Map<String, String> published = new HashMap<>(file);
+        for (String key : RESTART_KEYS) {
+            String current = values.get(key);
+            if (current == null) {
+                published.remove(key);
+            } else {
+                published.put(key, current);
+            }
+        }
+        return Map.copyOf(published);
+    }
+    
+    private static Map<String, String> load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        Map<String, String> loaded = new HashMap<>(DEFAULTS);
+        for (String key : properties.stringPropertyNames()) {
+            loaded.put(key, properties.getProperty(key));
+        }
+        return Map.copyOf(loaded);
+    }
+    
+    // Writes a temporary file next to the config, syncs it and renames it over the old one
+    private static void store(Map<String, String> settings) throws IOException {
+        Properties properties = new Properties();
+        properties.putAll(settings);
+        Path target = configPath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 OutputStream out = Channels.newOutputStream(channel)) {
+                properties.store(out, "Inventory System Configuration - Supabase");
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            logger.info("Configuration saved to file");
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    private static Path configPath() {
+        return Path.of(CONFIG_FILE).toAbsolutePath();
+    }
+    
+    /**
+     * Pending changes; nothing is visible to readers or written to disk until {@link #commit()}.
+     */
+    public static final class Batch {
+        private final Map<String, String> changes = new LinkedHashMap<>();
+        
+        private Batch() {
+        }
+        
+        public Batch set(String key, String value) {
+            changes.put(key, value);
+            return this;
+        }
+        
+        public Batch set(String key, boolean value) {
+            return set(key, String.valueOf(value));
+        }
+        
+        public Batch set(String key, int value) {
+            return set(key, String.valueOf(value));
+        }
+        
+        /**
+         * Writes all changes in a single file replacement and then publishes them at once.
+         *
+         * @throws UncheckedIOException if the file could not be written; the settings are then unchanged
+         */
+        public void commit() {
+            if (!changes.isEmpty()) {
+                apply(changes);
+            }
         }
     }
     
@@ -89,6 +366,45 @@ public class ConfigManager {
         return getBooleanProperty("allow_negative_stock");
     }
     
+    public static Duration getStockSnapshotMaxAge() {
+        int seconds = getIntProperty("stock_snapshot_max_age_seconds");
+        return Duration.ofSeconds(seconds > 0 ? seconds : 30);
+    }
+    
+    public static DayOfWeek getWeekStartDay() {
+        try {
+            return DayOfWeek.of(getIntProperty("week_start_day"));
+        } catch (DateTimeException e) {
+            return DayOfWeek.MONDAY;
+        }
+    }
+    
+    public static boolean isRealtimeEnabled() {
+        return getBooleanProperty("realtime_enabled");
+    }
+    
+    public static boolean isHedgedReadsEnabled() {
+        return getBooleanProperty("hedged_reads_enabled");
+    }
+    
+    public static int getPagedItemsThreshold() {
+        int threshold = getIntProperty("paged_items_threshold");
+        return threshold > 0 ? threshold : 50000;
+    }
+    
+    public static Duration getValuationRefreshInterval() {
+        int seconds = getIntProperty("valuation_refresh_seconds");
+        return Duration.ofSeconds(seconds > 0 ? seconds : 60);
+    }
+    
+    public static Duration getMetricsLogInterval() {
+        return Duration.ofSeconds(Math.max(getIntProperty("metrics_log_interval_seconds"), 0));
+    }
+    
+    public static String getTransactionJournalFile() {
+        return getProperty("transaction_journal_file", "transactions.journal");
+    }
+    
     public static String getSupabaseUrl() {
         return getProperty("supabase.url");
     }
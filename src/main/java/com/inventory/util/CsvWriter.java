@@ -0,0 +1,169 @@
+package com.inventory.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming CSV writer. Fields are escaped into a fixed char buffer, encoded with one reused
+ * UTF-8 encoder into a fixed byte buffer and written to a FileChannel (optionally through gzip),
+ * so memory use does not grow with the number of rows.
+ */
+public class CsvWriter implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel fileChannel;
+    private final GZIPOutputStream gzipStream;
+    private final WritableByteChannel target;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE * 2);
+    private boolean firstField = true;
+
+    public CsvWriter(Path file, boolean gzip) throws IOException {
+        this.fileChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        if (gzip) {
+            OutputStream fileStream = Channels.newOutputStream(fileChannel);
+            this.gzipStream = new GZIPOutputStream(fileStream, BUFFER_SIZE);
+            this.target = Channels.newChannel(gzipStream);
+        } else {
+            this.gzipStream = null;
+            this.target = fileChannel;
+        }
+    }
+
+    public CsvWriter field(CharSequence value) throws IOException {
+        separate();
+        if (value == null) {
+            return this;
+        }
+        boolean quote = needsQuotes(value);
+        if (quote) {
+            put('"');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                put('"');
+            }
+            put(c);
+        }
+        if (quote) {
+            put('"');
+        }
+        return this;
+    }
+
+    public CsvWriter field(Object value) throws IOException {
+        return field(value == null ? null : value.toString());
+    }
+
+    public CsvWriter field(long value) throws IOException {
+        return field(Long.toString(value));
+    }
+
+    public CsvWriter endRow() throws IOException {
+        put('\r');
+        put('\n');
+        firstField = true;
+        return this;
+    }
+
+    public CsvWriter row(Object... values) throws IOException {
+        for (Object value : values) {
+            field(value);
+        }
+        return endRow();
+    }
+
+    private void separate() throws IOException {
+        if (!firstField) {
+            put(',');
+        }
+        firstField = false;
+    }
+
+    private static boolean needsQuotes(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void put(char c) throws IOException {
+        if (!chars.hasRemaining()) {
+            drainChars(false);
+        }
+        chars.put(c);
+    }
+
+    // Encodes the buffered chars; a trailing high surrogate stays buffered until its pair arrives
+    private void drainChars(boolean endOfInput) throws IOException {
+        chars.flip();
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isOverflow()) {
+                writeBytes();
+            } else if (result.isUnderflow()) {
+                break;
+            } else {
+                try {
+                    result.throwException();
+                } catch (CharacterCodingException e) {
+                    throw new IOException("Cannot encode CSV output", e);
+                }
+            }
+        }
+        chars.compact();
+    }
+
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            target.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    /**
+     * Pushes everything buffered so far to the file.
+     */
+    public void flush() throws IOException {
+        drainChars(false);
+        writeBytes();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drainChars(true);
+            while (encoder.flush(bytes).isOverflow()) {
+                writeBytes();
+            }
+            writeBytes();
+            if (gzipStream != null) {
+                gzipStream.finish();
+            }
+            fileChannel.force(false);
+        } finally {
+            target.close();
+            fileChannel.close();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.inventory.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Case-insensitive substring index over a few text fields per document.
+ * <p>
+ * Every lower-cased 3-character window of a document is mapped to a sorted posting list of
+ * document ordinals. A query intersects the posting lists of its own trigrams (smallest first)
+ * and confirms the few surviving candidates with a real substring check. Queries shorter than
+ * three characters fall back to a scan of the pre-lowered texts.
+ * <p>
+ * Updates re-index a document under a fresh ordinal and tombstone the old one; the index is
+ * rebuilt once tombstones outnumber live documents. Not thread-safe.
+ */
+public class TrigramIndex {
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    private final Map<UUID, Integer> ordinals = new HashMap<>();
+    private final PostingsTable postings = new PostingsTable();
+    private String[] texts = new String[1024];
+    private UUID[] ids = new UUID[1024];
+    private final BitSet live = new BitSet();
+    private int nextOrdinal;
+
+    /**
+     * Adds or replaces the document for {@code id}.
+     */
+    public void put(UUID id, String... fields) {
+        remove(id);
+        if (nextOrdinal > 2 * Math.max(ordinals.size(), 512)) {
+            compact();
+        }
+        StringBuilder text = new StringBuilder();
+        for (String field : fields) {
+            if (field != null) {
+                text.append(field.toLowerCase(Locale.ROOT));
+            }
+            text.append(FIELD_SEPARATOR);
+        }
+        index(id, text.toString());
+    }
+
+    public void remove(UUID id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal != null) {
+            live.clear(ordinal);
+            texts[ordinal] = null;
+            ids[ordinal] = null;
+        }
+    }
+
+    public void clear() {
+        ordinals.clear();
+        postings.clear();
+        live.clear();
+        texts = new String[1024];
+        ids = new UUID[1024];
+        nextOrdinal = 0;
+    }
+
+    /**
+     * @return the ordinal currently assigned to {@code id}, or -1 if it is not indexed
+     */
+    public int ordinalOf(UUID id) {
+        Integer ordinal = ordinals.get(id);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * @return the id of the live document at {@code ordinal}, or null
+     */
+    public UUID idAt(int ordinal) {
+        return ordinal < nextOrdinal ? ids[ordinal] : null;
+    }
+
+    /**
+     * @return ordinals of live documents containing {@code query} (case-insensitive)
+     */
+    public BitSet search(String query) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        BitSet hits = new BitSet(nextOrdinal);
+        if (needle.length() < 3) {
+            for (int ordinal = live.nextSetBit(0); ordinal >= 0; ordinal = live.nextSetBit(ordinal + 1)) {
+                if (texts[ordinal].contains(needle)) {
+                    hits.set(ordinal);
+                }
+            }
+            return hits;
+        }
+
+        int gramCount = needle.length() - 2;
+        Postings[] lists = new Postings[gramCount];
+        for (int i = 0; i < gramCount; i++) {
+            Postings list = postings.get(trigram(needle, i));
+            if (list == null) {
+                return hits;
+            }
+            lists[i] = list;
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+        int[] candidates = Arrays.copyOf(lists[0].ordinals, lists[0].size);
+        int candidateCount = candidates.length;
+        for (int i = 1; i < lists.length && candidateCount > 0; i++) {
+            if (lists[i] != lists[i - 1]) {
+                candidateCount = intersect(candidates, candidateCount, lists[i]);
+            }
+        }
+        for (int i = 0; i < candidateCount; i++) {
+            int ordinal = candidates[i];
+            if (live.get(ordinal) && texts[ordinal].contains(needle)) {
+                hits.set(ordinal);
+            }
+        }
+        return hits;
+    }
+
+    private void index(UUID id, String text) {
+        int ordinal = nextOrdinal++;
+        if (ordinal == texts.length) {
+            texts = Arrays.copyOf(texts, texts.length * 2);
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+        texts[ordinal] = text;
+        ids[ordinal] = id;
+        live.set(ordinal);
+        ordinals.put(id, ordinal);
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            // Ordinals only grow, so appending keeps every posting list sorted; skip repeats within this document
+            postings.getOrCreate(trigram(text, i)).addIfLast(ordinal);
+        }
+    }
+
+    // Re-indexes live documents densely, dropping tombstones from the posting lists
+    private void compact() {
+        String[] oldTexts = texts;
+        Map<UUID, Integer> oldOrdinals = new HashMap<>(ordinals);
+        clear();
+        oldOrdinals.forEach((id, ordinal) -> index(id, oldTexts[ordinal]));
+    }
+
+    // In-place intersection of the sorted candidates with a sorted posting list
+    private static int intersect(int[] candidates, int count, Postings list) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < list.size; i++) {
+            int candidate = candidates[i];
+            while (j < list.size && list.ordinals[j] < candidate) {
+                j++;
+            }
+            if (j < list.size && list.ordinals[j] == candidate) {
+                candidates[kept++] = candidate;
+            }
+        }
+        return kept;
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    // Open-addressing map from packed trigram to its posting list, avoiding a boxed Long per lookup
+    private static final class PostingsTable {
+        private long[] keys = new long[1 << 12];
+        private Postings[] values = new Postings[1 << 12];
+        private int size;
+
+        Postings get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = slot(key, mask); values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return null;
+        }
+
+        Postings getOrCreate(long key) {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            for (; values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            Postings created = new Postings();
+            keys[slot] = key;
+            values[slot] = created;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+            return created;
+        }
+
+        void clear() {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            Postings[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Postings[oldValues.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    int slot = slot(oldKeys[i], mask);
+                    while (values[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 40) & mask;
+        }
+    }
+
+    private static final class Postings {
+        private int[] ordinals = new int[4];
+        private int size;
+
+        void addIfLast(int ordinal) {
+            if (size > 0 && ordinals[size - 1] == ordinal) {
+                return;
+            }
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+    }
+}
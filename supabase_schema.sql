@@ -24,7 +24,8 @@ CREATE TABLE IF NOT EXISTS items (
   min_stock INTEGER DEFAULT 0,
   is_palindrome BOOLEAN DEFAULT FALSE,
   is_active BOOLEAN DEFAULT TRUE,
-  created_at TIMESTAMP DEFAULT NOW()
+  created_at TIMESTAMP DEFAULT NOW(),
+  updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
 );
 
 -- Tabel locations
@@ -33,12 +34,27 @@ CREATE TABLE IF NOT EXISTS locations (
   name TEXT NOT NULL
 );
 
--- Tabel stock_balance
-CREATE TABLE IF NOT EXISTS stock_balance (
+-- Item yang sering bergerak bersamaan; item yang tidak terdaftar memakai satu shard
+CREATE TABLE IF NOT EXISTS stock_hot_items (
   item_id UUID PRIMARY KEY REFERENCES items(id) ON DELETE CASCADE,
-  quantity INTEGER NOT NULL DEFAULT 0
+  shards INTEGER NOT NULL DEFAULT 4 CHECK (shards BETWEEN 1 AND 64)
+);
+
+-- Saldo stok per (item, lokasi, shard); penambahan ke item ramai tersebar ke shard acak
+CREATE TABLE IF NOT EXISTS stock_balance_location (
+  item_id UUID NOT NULL REFERENCES items(id) ON DELETE CASCADE,
+  location_id UUID NOT NULL REFERENCES locations(id),
+  shard SMALLINT NOT NULL DEFAULT 0,
+  quantity INTEGER NOT NULL DEFAULT 0,
+  PRIMARY KEY (item_id, location_id, shard)
 );
 
+-- Total per item, dijumlahkan saat dibaca
+CREATE OR REPLACE VIEW stock_balance AS
+SELECT item_id, SUM(quantity)::INTEGER AS quantity
+FROM stock_balance_location
+GROUP BY item_id;
+
 -- Tabel transactions
 CREATE TABLE IF NOT EXISTS transactions (
   id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
@@ -47,7 +63,7 @@ CREATE TABLE IF NOT EXISTS transactions (
   reference TEXT,
   created_by UUID REFERENCES users(id),
   notes TEXT,
-  created_at TIMESTAMP DEFAULT NOW()
+  created_at TIMESTAMP NOT NULL DEFAULT NOW()
 );
 
 -- Tabel transaction_lines
@@ -58,7 +74,43 @@ CREATE TABLE IF NOT EXISTS transaction_lines (
   location_id UUID REFERENCES locations(id),
   qty INTEGER NOT NULL,
   condition_status TEXT CHECK (condition_status IN ('USABLE','NOT_USABLE')) DEFAULT 'USABLE',
-  unit_price NUMERIC(12,2)
+  unit_price NUMERIC(12,2),
+  -- Diisi server saat line disimpan; valuasi memakai kolom ini untuk mengambil line baru
+  recorded_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Tabel pengaturan global (satu baris); week_start_day: 1 = Senin ... 7 = Minggu (ISO)
+CREATE TABLE IF NOT EXISTS inventory_settings (
+  id BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+  week_start_day INTEGER NOT NULL DEFAULT 1 CHECK (week_start_day BETWEEN 1 AND 7)
+);
+
+-- Rekap pergerakan per item per hari, dirawat inkremental oleh trigger trg_movement_rollups
+CREATE TABLE IF NOT EXISTS movement_daily (
+  day DATE NOT NULL,
+  item_id UUID NOT NULL REFERENCES items(id) ON DELETE CASCADE,
+  in_qty INTEGER NOT NULL DEFAULT 0,
+  out_qty INTEGER NOT NULL DEFAULT 0,
+  disposition_qty INTEGER NOT NULL DEFAULT 0,
+  adjust_qty INTEGER NOT NULL DEFAULT 0,
+  in_value NUMERIC(14,2) NOT NULL DEFAULT 0,
+  out_value NUMERIC(14,2) NOT NULL DEFAULT 0,
+  disposition_value NUMERIC(14,2) NOT NULL DEFAULT 0,
+  PRIMARY KEY (day, item_id)
+);
+
+-- Rekap pergerakan per item per minggu; minggu dimulai pada inventory_settings.week_start_day
+CREATE TABLE IF NOT EXISTS movement_weekly (
+  week_start DATE NOT NULL,
+  item_id UUID NOT NULL REFERENCES items(id) ON DELETE CASCADE,
+  in_qty INTEGER NOT NULL DEFAULT 0,
+  out_qty INTEGER NOT NULL DEFAULT 0,
+  disposition_qty INTEGER NOT NULL DEFAULT 0,
+  adjust_qty INTEGER NOT NULL DEFAULT 0,
+  in_value NUMERIC(14,2) NOT NULL DEFAULT 0,
+  out_value NUMERIC(14,2) NOT NULL DEFAULT 0,
+  disposition_value NUMERIC(14,2) NOT NULL DEFAULT 0,
+  PRIMARY KEY (week_start, item_id)
 );
 
 -- Insert data default
@@ -66,8 +118,12 @@ INSERT INTO users (username, password_hash, fullname, role)
 VALUES ('admin', 'admin123', 'Administrator', 'ADMIN') 
 ON CONFLICT (username) DO NOTHING;
 
-INSERT INTO locations (name) 
-VALUES ('Main Warehouse') 
+INSERT INTO locations (name)
+SELECT v.name FROM (VALUES ('Main Warehouse'), ('Storage A'), ('Storage B')) AS v(name)
+WHERE NOT EXISTS (SELECT 1 FROM locations l WHERE l.name = v.name);
+
+INSERT INTO inventory_settings (id) 
+VALUES (TRUE) 
 ON CONFLICT DO NOTHING;
 
 -- Buat index untuk performa
@@ -76,28 +132,65 @@ CREATE INDEX IF NOT EXISTS idx_items_name ON items(name);
 CREATE INDEX IF NOT EXISTS idx_transactions_date ON transactions(tx_date);
 CREATE INDEX IF NOT EXISTS idx_transactions_type ON transactions(tx_type);
 CREATE INDEX IF NOT EXISTS idx_transaction_lines_item ON transaction_lines(item_id);
+CREATE INDEX IF NOT EXISTS idx_items_updated_at ON items(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_transactions_report_keyset ON transactions(tx_date, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_transaction_lines_transaction ON transaction_lines(transaction_id);
+CREATE INDEX IF NOT EXISTS idx_transactions_created_at ON transactions(created_at, id);
+CREATE INDEX IF NOT EXISTS idx_transaction_lines_recorded_at ON transaction_lines(recorded_at, id);
+
+-- Function untuk menjaga items.updated_at (dipakai client untuk delta sync)
+CREATE OR REPLACE FUNCTION touch_updated_at()
+RETURNS TRIGGER AS $$
+BEGIN
+  NEW.updated_at := NOW();
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
 
--- Function untuk update stock balance otomatis
+DROP TRIGGER IF EXISTS trg_items_updated_at ON items;
+CREATE TRIGGER trg_items_updated_at
+  BEFORE UPDATE ON items
+  FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+
+-- Function untuk update stock balance otomatis (trigger level statement)
+-- Semua line dari satu INSERT diagregasi per (item, lokasi) lewat transition table, lalu satu upsert per grup
+-- ke satu shard acak (stock_hot_items menentukan jumlah shard): biaya insert massal sebanding dengan
+-- jumlah grup, dan pergerakan item yang sama di lokasi berbeda tidak saling mengunci
+-- tx_type ada di header (transactions), bukan di transaction_lines
+-- IN dan ADJUST menambah qty (ADJUST boleh negatif), OUT dan DISPOSITION mengurangi
+-- Dilewati bila stok sudah diterapkan oleh RPC issue_transactions dalam transaksi database yang sama
 CREATE OR REPLACE FUNCTION update_stock_balance()
 RETURNS TRIGGER AS $$
 BEGIN
-  -- Insert initial stock balance if not exists
-  INSERT INTO stock_balance (item_id, quantity) 
-  VALUES (NEW.item_id, 0) 
-  ON CONFLICT (item_id) DO NOTHING;
-  
-  -- Update stock based on transaction type
-  IF (NEW.tx_type = 'IN') THEN
-    UPDATE stock_balance 
-    SET quantity = quantity + NEW.qty 
-    WHERE item_id = NEW.item_id;
-  ELSIF (NEW.tx_type IN ('OUT','DISPOSITION')) THEN
-    UPDATE stock_balance 
-    SET quantity = quantity - NEW.qty 
-    WHERE item_id = NEW.item_id;
+  IF current_setting('inventory.stock_applied', true) = 'on' THEN
+    RETURN NULL;
   END IF;
-  
-  RETURN NEW;
+
+  -- Urut per (item_id, location_id) supaya row lock selalu diambil dengan urutan yang sama (hindari deadlock)
+  INSERT INTO stock_balance_location (item_id, location_id, shard, quantity)
+  SELECT m.item_id, m.location_id,
+         floor(random() * COALESCE(h.shards, 1))::SMALLINT,
+         m.quantity
+  FROM (
+    SELECT l.item_id, COALESCE(l.location_id, default_location_id()) AS location_id,
+           SUM(CASE t.tx_type
+                 WHEN 'IN' THEN l.qty
+                 WHEN 'ADJUST' THEN l.qty
+                 WHEN 'OUT' THEN -l.qty
+                 WHEN 'DISPOSITION' THEN -l.qty
+                 ELSE 0
+               END)::INTEGER AS quantity
+    FROM new_lines l
+    JOIN transactions t ON t.id = l.transaction_id
+    WHERE l.item_id IS NOT NULL
+    GROUP BY 1, 2
+  ) m
+  LEFT JOIN stock_hot_items h ON h.item_id = m.item_id
+  ORDER BY m.item_id, m.location_id
+  ON CONFLICT (item_id, location_id, shard) DO UPDATE
+  SET quantity = stock_balance_location.quantity + EXCLUDED.quantity;
+
+  RETURN NULL;
 END;
 $$ LANGUAGE plpgsql;
 
@@ -105,7 +198,229 @@ $$ LANGUAGE plpgsql;
 DROP TRIGGER IF EXISTS trg_update_stock ON transaction_lines;
 CREATE TRIGGER trg_update_stock
   AFTER INSERT ON transaction_lines
-  FOR EACH ROW EXECUTE FUNCTION update_stock_balance();
+  REFERENCING NEW TABLE AS new_lines
+  FOR EACH STATEMENT EXECUTE FUNCTION update_stock_balance();
+
+-- Tanggal awal minggu yang memuat p_date, untuk minggu yang dimulai pada hari ISO p_week_start
+CREATE OR REPLACE FUNCTION week_start_of(p_date DATE, p_week_start INTEGER)
+RETURNS DATE AS $$
+  SELECT p_date - ((EXTRACT(ISODOW FROM p_date)::INTEGER - p_week_start + 7) % 7);
+$$ LANGUAGE sql IMMUTABLE;
+
+-- Function untuk merawat movement_daily dan movement_weekly (trigger level statement)
+-- Line dari satu INSERT diagregasi per (hari, item) dan (minggu, item), lalu satu upsert per grup
+-- Tidak ikut dilewati oleh inventory.stock_applied: pengeluaran lewat issue_transactions tetap tercatat
+CREATE OR REPLACE FUNCTION update_movement_rollups()
+RETURNS TRIGGER AS $$
+DECLARE
+  v_week_start INTEGER;
+BEGIN
+  -- FOR SHARE: set_week_start_day menunggu insert ini selesai sebelum membangun ulang movement_weekly
+  SELECT week_start_day INTO v_week_start FROM inventory_settings WHERE id FOR SHARE;
+
+  INSERT INTO movement_daily (day, item_id, in_qty, out_qty, disposition_qty, adjust_qty,
+                              in_value, out_value, disposition_value)
+  SELECT t.tx_date, l.item_id,
+         COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'IN'), 0),
+         COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'OUT'), 0),
+         COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'DISPOSITION'), 0),
+         COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'ADJUST'), 0),
+         COALESCE(SUM(l.qty * l.unit_price) FILTER (WHERE t.tx_type = 'IN'), 0),
+         COALESCE(SUM(l.qty * l.unit_price) FILTER (WHERE t.tx_type = 'OUT'), 0),
+         COALESCE(SUM(l.qty * l.unit_price) FILTER (WHERE t.tx_type = 'DISPOSITION'), 0)
+  FROM new_lines l
+  JOIN transactions t ON t.id = l.transaction_id
+  WHERE l.item_id IS NOT NULL
+  GROUP BY t.tx_date, l.item_id
+  ORDER BY t.tx_date, l.item_id
+  ON CONFLICT (day, item_id) DO UPDATE
+  SET in_qty = movement_daily.in_qty + EXCLUDED.in_qty,
+      out_qty = movement_daily.out_qty + EXCLUDED.out_qty,
+      disposition_qty = movement_daily.disposition_qty + EXCLUDED.disposition_qty,
+      adjust_qty = movement_daily.adjust_qty + EXCLUDED.adjust_qty,
+      in_value = movement_daily.in_value + EXCLUDED.in_value,
+      out_value = movement_daily.out_value + EXCLUDED.out_value,
+      disposition_value = movement_daily.disposition_value + EXCLUDED.disposition_value;
+
+  INSERT INTO movement_weekly (week_start, item_id, in_qty, out_qty, disposition_qty, adjust_qty,
+                               in_value, out_value, disposition_value)
+  SELECT week_start_of(t.tx_date, v_week_start), l.item_id,
+         COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'IN'), 0),
+         COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'OUT'), 0),
+         COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'DISPOSITION'), 0),
+         COALESCE(SUM(l.qty) FILTER (WHERE t.tx_type = 'ADJUST'), 0),
+         COALESCE(SUM(l.qty * l.unit_price) FILTER (WHERE t.tx_type = 'IN'), 0),
+         COALESCE(SUM(l.qty * l.unit_price) FILTER (WHERE t.tx_type = 'OUT'), 0),
+         COALESCE(SUM(l.qty * l.unit_price) FILTER (WHERE t.tx_type = 'DISPOSITION'), 0)
+  FROM new_lines l
+  JOIN transactions t ON t.id = l.transaction_id
+  WHERE l.item_id IS NOT NULL
+  GROUP BY 1, l.item_id
+  ORDER BY 1, l.item_id
+  ON CONFLICT (week_start, item_id) DO UPDATE
+  SET in_qty = movement_weekly.in_qty + EXCLUDED.in_qty,
+      out_qty = movement_weekly.out_qty + EXCLUDED.out_qty,
+      disposition_qty = movement_weekly.disposition_qty + EXCLUDED.disposition_qty,
+      adjust_qty = movement_weekly.adjust_qty + EXCLUDED.adjust_qty,
+      in_value = movement_weekly.in_value + EXCLUDED.in_value,
+      out_value = movement_weekly.out_value + EXCLUDED.out_value,
+      disposition_value = movement_weekly.disposition_value + EXCLUDED.disposition_value;
+
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Trigger untuk rekap pergerakan harian/mingguan
+DROP TRIGGER IF EXISTS trg_movement_rollups ON transaction_lines;
+CREATE TRIGGER trg_movement_rollups
+  AFTER INSERT ON transaction_lines
+  REFERENCING NEW TABLE AS new_lines
+  FOR EACH STATEMENT EXECUTE FUNCTION update_movement_rollups();
+
+-- Function (RPC) untuk mengganti hari awal minggu; movement_weekly dibangun ulang dari movement_daily
+-- sehingga biayanya sebanding dengan hari x item, bukan jumlah transaction line
+CREATE OR REPLACE FUNCTION set_week_start_day(p_day INTEGER)
+RETURNS VOID AS $$
+BEGIN
+  IF p_day NOT BETWEEN 1 AND 7 THEN
+    RAISE EXCEPTION 'week_start_day must be between 1 and 7, got %', p_day;
+  END IF;
+
+  UPDATE inventory_settings SET week_start_day = p_day WHERE id;
+
+  DELETE FROM movement_weekly;
+  INSERT INTO movement_weekly (week_start, item_id, in_qty, out_qty, disposition_qty, adjust_qty,
+                               in_value, out_value, disposition_value)
+  SELECT week_start_of(day, p_day), item_id,
+         SUM(in_qty), SUM(out_qty), SUM(disposition_qty), SUM(adjust_qty),
+         SUM(in_value), SUM(out_value), SUM(disposition_value)
+  FROM movement_daily
+  GROUP BY 1, item_id;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Lokasi untuk line tanpa location_id (data lama, import CSV)
+CREATE OR REPLACE FUNCTION default_location_id()
+RETURNS UUID AS $$
+  SELECT id FROM locations ORDER BY (name = 'Main Warehouse') DESC, name, id LIMIT 1;
+$$ LANGUAGE sql STABLE;
+
+-- Function untuk membuat transaksi beserta semua line-nya dalam satu request (RPC)
+-- Idempoten: transaksi dengan id yang sudah ada tidak disentuh lagi
+-- Line tanpa lokasi dicatat di lokasi default, sehingga saldo per lokasi selalu lengkap
+CREATE OR REPLACE FUNCTION create_transaction(p_tx JSONB, p_lines JSONB)
+RETURNS UUID AS $$
+DECLARE
+  v_id UUID;
+BEGIN
+  INSERT INTO transactions (id, tx_type, tx_date, reference, created_by, notes, created_at)
+  SELECT id, tx_type, tx_date, reference, created_by, notes, COALESCE(created_at, NOW())
+  FROM jsonb_populate_record(NULL::transactions, p_tx)
+  ON CONFLICT (id) DO NOTHING
+  RETURNING id INTO v_id;
+
+  IF v_id IS NULL THEN
+    RETURN (p_tx->>'id')::UUID;
+  END IF;
+
+  INSERT INTO transaction_lines (id, transaction_id, item_id, location_id, qty, condition_status, unit_price)
+  SELECT id, v_id, item_id, COALESCE(location_id, default_location_id()), qty,
+         COALESCE(condition_status, 'USABLE'), unit_price
+  FROM jsonb_populate_recordset(NULL::transaction_lines, p_lines);
+
+  RETURN v_id;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Function untuk pengeluaran barang (OUT/DISPOSITION) yang atomik: cek + kurangi stok + simpan semua header
+-- dan line dalam satu request. Satu keranjang bisa berisi beberapa header (OUT dan DISPOSITION); semuanya
+-- tersimpan bersama atau tidak sama sekali. Setiap line membawa transaction_id milik header-nya.
+-- Semua shard (item, lokasi) dikunci sebelum cek saldo, sehingga tidak ada race check-then-act antar clerk;
+-- lokasi lain tidak ikut menunggu.
+-- Hasil: {"status":"OK","balances":[{"item_id":..,"balance":..}]} dengan balance = total item di semua lokasi
+--    atau {"status":"INSUFFICIENT_STOCK","item_id":..,"location_id":..,"available":..,"requested":..} (tidak ada yang disimpan)
+CREATE OR REPLACE FUNCTION issue_transactions(p_txs JSONB, p_lines JSONB, p_allow_negative BOOLEAN DEFAULT FALSE)
+RETURNS JSONB AS $$
+DECLARE
+  v_need RECORD;
+  v_tx JSONB;
+  v_available INTEGER;
+  v_balances JSONB := '[]'::JSONB;
+  v_shortage JSONB;
+BEGIN
+  -- Header selalu tersimpan bersama, jadi satu yang sudah ada berarti keranjang ini sudah tercatat
+  IF EXISTS (SELECT 1 FROM transactions
+             WHERE id IN (SELECT (h->>'id')::UUID FROM jsonb_array_elements(p_txs) h)) THEN
+    RETURN jsonb_build_object('status', 'OK', 'duplicate', TRUE, 'balances', '[]'::JSONB);
+  END IF;
+
+  BEGIN
+    FOR v_need IN
+      SELECT item_id, COALESCE(location_id, default_location_id()) AS location_id, SUM(qty)::INTEGER AS qty
+      FROM jsonb_populate_recordset(NULL::transaction_lines, p_lines)
+      GROUP BY 1, 2
+      ORDER BY 1, 2
+    LOOP
+      INSERT INTO stock_balance_location (item_id, location_id, shard, quantity)
+      VALUES (v_need.item_id, v_need.location_id, 0, 0)
+      ON CONFLICT (item_id, location_id, shard) DO NOTHING;
+
+      -- Semua shard item di lokasi ini dikunci, supaya cek saldo dan pengurangan tidak bisa disusul
+      PERFORM 1 FROM stock_balance_location
+      WHERE item_id = v_need.item_id AND location_id = v_need.location_id
+      ORDER BY shard
+      FOR UPDATE;
+
+      SELECT COALESCE(SUM(quantity), 0)::INTEGER INTO v_available
+      FROM stock_balance_location
+      WHERE item_id = v_need.item_id AND location_id = v_need.location_id;
+
+      IF NOT p_allow_negative AND v_available < v_need.qty THEN
+        v_shortage := jsonb_build_object('status', 'INSUFFICIENT_STOCK', 'item_id', v_need.item_id,
+                                         'location_id', v_need.location_id,
+                                         'available', v_available, 'requested', v_need.qty);
+        RAISE EXCEPTION 'insufficient stock';
+      END IF;
+
+      UPDATE stock_balance_location
+      SET quantity = quantity - v_need.qty
+      WHERE item_id = v_need.item_id AND location_id = v_need.location_id AND shard = 0;
+    END LOOP;
+
+    -- Stok sudah dikurangi di atas; trigger tidak boleh mengurangi lagi
+    PERFORM set_config('inventory.stock_applied', 'on', TRUE);
+    FOR v_tx IN SELECT value FROM jsonb_array_elements(p_txs) LOOP
+      PERFORM create_transaction(v_tx, COALESCE(
+        (SELECT jsonb_agg(l) FROM jsonb_array_elements(p_lines) l WHERE l->>'transaction_id' = v_tx->>'id'),
+        '[]'::JSONB));
+    END LOOP;
+    PERFORM set_config('inventory.stock_applied', 'off', TRUE);
+  EXCEPTION WHEN raise_exception THEN
+    -- Semua pengurangan di blok ini dibatalkan
+    IF v_shortage IS NULL THEN
+      RAISE;
+    END IF;
+    RETURN v_shortage;
+  END;
+
+  SELECT COALESCE(jsonb_agg(jsonb_build_object('item_id', b.item_id, 'balance', b.quantity)), '[]'::JSONB)
+  INTO v_balances
+  FROM stock_balance b
+  WHERE b.item_id IN (SELECT DISTINCT item_id FROM jsonb_populate_recordset(NULL::transaction_lines, p_lines));
+
+  RETURN jsonb_build_object('status', 'OK', 'balances', v_balances);
+END;
+$$ LANGUAGE plpgsql;
+
+-- Bentuk lama untuk satu header; line mengikuti id header tersebut
+CREATE OR REPLACE FUNCTION issue_transaction(p_tx JSONB, p_lines JSONB, p_allow_negative BOOLEAN DEFAULT FALSE)
+RETURNS JSONB AS $$
+  SELECT issue_transactions(
+    jsonb_build_array(p_tx),
+    COALESCE((SELECT jsonb_agg(l || jsonb_build_object('transaction_id', p_tx->'id'))
+              FROM jsonb_array_elements(p_lines) l), '[]'::JSONB),
+    p_allow_negative);
+$$ LANGUAGE sql;
 
 -- Function untuk deteksi palindrom (opsional, bisa di JavaFX)
 CREATE OR REPLACE FUNCTION is_palindrome(text_to_check TEXT)
@@ -122,6 +437,7 @@ END;
 $$ LANGUAGE plpgsql;
 
 -- View untuk laporan transaksi
+-- Tanpa ORDER BY: client mengurutkan dan mem-paging sendiri dengan keyset (tx_date, created_at, line_id)
 CREATE OR REPLACE VIEW transaction_report AS
 SELECT 
   t.id,
@@ -136,32 +452,86 @@ SELECT
   tl.condition_status,
   tl.unit_price,
   u.fullname as created_by_name,
-  t.created_at
+  t.created_at,
+  tl.id as line_id,
+  tl.item_id,
+  tl.location_id,
+  tl.recorded_at
 FROM transactions t
 JOIN transaction_lines tl ON t.id = tl.transaction_id
 JOIN items i ON tl.item_id = i.id
 LEFT JOIN users u ON t.created_by = u.id
-WHERE i.is_active = true
-ORDER BY t.tx_date DESC, t.created_at DESC;
+WHERE i.is_active = true;
+
+-- View untuk laporan ringkas harian/mingguan (dibaca client dengan keyset (period_start, item_id))
+CREATE OR REPLACE VIEW movement_daily_report AS
+SELECT 
+  m.day as period_start,
+  m.item_id,
+  i.item_code,
+  i.name as item_name,
+  m.in_qty,
+  m.out_qty,
+  m.disposition_qty,
+  m.adjust_qty,
+  m.in_value,
+  m.out_value,
+  m.disposition_value
+FROM movement_daily m
+JOIN items i ON m.item_id = i.id
+WHERE i.is_active = true;
+
+CREATE OR REPLACE VIEW movement_weekly_report AS
+SELECT 
+  m.week_start as period_start,
+  m.item_id,
+  i.item_code,
+  i.name as item_name,
+  m.in_qty,
+  m.out_qty,
+  m.disposition_qty,
+  m.adjust_qty,
+  m.in_value,
+  m.out_value,
+  m.disposition_value
+FROM movement_weekly m
+JOIN items i ON m.item_id = i.id
+WHERE i.is_active = true;
+
+-- Supabase Realtime: client berlangganan perubahan items dan stock_balance_location (postgres_changes)
+DO $$
+BEGIN
+  IF EXISTS (SELECT 1 FROM pg_publication WHERE pubname = 'supabase_realtime') THEN
+    IF NOT EXISTS (SELECT 1 FROM pg_publication_tables
+                   WHERE pubname = 'supabase_realtime' AND schemaname = 'public' AND tablename = 'items') THEN
+      ALTER PUBLICATION supabase_realtime ADD TABLE items;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_publication_tables
+                   WHERE pubname = 'supabase_realtime' AND schemaname = 'public' AND tablename = 'stock_balance_location') THEN
+      ALTER PUBLICATION supabase_realtime ADD TABLE stock_balance_location;
+    END IF;
+  END IF;
+END;
+$$;
 
 -- Row Level Security (RLS) - Enable untuk production
 -- ALTER TABLE users ENABLE ROW LEVEL SECURITY;
 -- ALTER TABLE items ENABLE ROW LEVEL SECURITY;
 -- ALTER TABLE transactions ENABLE ROW LEVEL SECURITY;
 -- ALTER TABLE transaction_lines ENABLE ROW LEVEL SECURITY;
--- ALTER TABLE stock_balance ENABLE ROW LEVEL SECURITY;
+-- ALTER TABLE stock_balance_location ENABLE ROW LEVEL SECURITY;
 
 -- Policy untuk public access (development only)
 -- CREATE POLICY "Allow public access" ON items FOR ALL USING (true);
 -- CREATE POLICY "Allow public access" ON transactions FOR ALL USING (true);
 -- CREATE POLICY "Allow public access" ON transaction_lines FOR ALL USING (true);
--- CREATE POLICY "Allow public access" ON stock_balance FOR ALL USING (true);
+-- CREATE POLICY "Allow public access" ON stock_balance_location FOR ALL USING (true);
 
 -- Tampilkan struktur tabel
 \d users;
 \d items;
 \d locations;
-\d stock_balance;
+\d stock_balance_location;
 \d transactions;
 \d transaction_lines;
 